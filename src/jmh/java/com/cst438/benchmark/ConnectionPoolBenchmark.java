@@ -0,0 +1,47 @@
+package com.cst438.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/*
+ * Read throughput against the connection pool size with more request threads than
+ * connections.  Throughput stops rising once the pool matches the cores the database can
+ * use, larger pools only add waiting inside the database.  Choose
+ * GRADEBOOK_DB_POOL_SIZE for prod from where the curve flattens.
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConnectionPoolBenchmark -p poolSize=4,8"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class ConnectionPoolBenchmark {
+
+    @Benchmark
+    public int getEnrollments(PooledGradebook gradebook) throws Exception {
+        int sectionNo = gradebook.data.sectionNo(gradebook.randomSection());
+        return GradebookEndpointBenchmark.status(gradebook, MockMvcRequestBuilders.get("/sections/" + sectionNo + "/enrollments")
+                .accept(MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public int getStudentAssignments(PooledGradebook gradebook) throws Exception {
+        GradebookDataGenerator data = gradebook.data;
+        int student = gradebook.randomStudent();
+        int term = data.termOf(data.sectionOf(student, 0));
+        return GradebookEndpointBenchmark.status(gradebook, MockMvcRequestBuilders.get("/assignments?studentId=" + data.studentId(student)
+                        + "&year=" + data.year(term) + "&semester=" + data.semester(term))
+                .accept(MediaType.APPLICATION_JSON));
+    }
+}
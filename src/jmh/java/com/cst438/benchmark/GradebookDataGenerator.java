@@ -0,0 +1,264 @@
+package com.cst438.benchmark;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+ * Fills the gradebook tables with synthetic data at a configurable scale using
+ * batched JDBC inserts.  The same Scale always produces the same rows: ids are
+ * computed from the position of a row and scores come from a seeded Random, so
+ * runs can be compared and callers can pick rows without querying for them.
+ *
+ * Every student is enrolled in sectionsPerStudent sections spread evenly over the
+ * sections, and has a grade for every assignment of those sections.  About one
+ * grade in ten is left unscored.  Generated rows use ids above the data.sql rows.
+ */
+public class GradebookDataGenerator {
+
+    public record Scale(
+            int terms,                  // at most 40, Spring and Fall from 2000, before the data.sql terms
+            int courses,
+            int sections,
+            int students,
+            int sectionsPerStudent,
+            int assignmentsPerSection,
+            int instructors,
+            long seed
+    ) {
+        // 10,000 students, 500 sections of 40, 400,000 grades
+        public static final Scale BENCHMARK = new Scale(1, 50, 500, 10_000, 2, 20, 50, 438);
+
+        // defaults from BENCHMARK, overridden by --terms, --courses, --sections, --students,
+        // --sections-per-student, --assignments, --instructors and --seed
+        public static Scale of(Map<String, String> options) {
+            return new Scale(
+                    intOption(options, "terms", BENCHMARK.terms),
+                    intOption(options, "courses", BENCHMARK.courses),
+                    intOption(options, "sections", BENCHMARK.sections),
+                    intOption(options, "students", BENCHMARK.students),
+                    intOption(options, "sections-per-student", BENCHMARK.sectionsPerStudent),
+                    intOption(options, "assignments", BENCHMARK.assignmentsPerSection),
+                    intOption(options, "instructors", BENCHMARK.instructors),
+                    Long.parseLong(options.getOrDefault("seed", String.valueOf(BENCHMARK.seed))));
+        }
+
+        public long grades() {
+            return (long) students * sectionsPerStudent * assignmentsPerSection;
+        }
+
+        private static int intOption(Map<String, String> options, String name, int defaultValue) {
+            return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+        }
+    }
+
+    static final int FIRST_TERM = 1_000;
+    static final int FIRST_INSTRUCTOR = 1_000_000;
+    static final int FIRST_STUDENT = 2_000_000;
+    static final int FIRST_SECTION = 1_000_000;
+    static final int FIRST_ENROLLMENT = 10_000_000;
+    static final int FIRST_ASSIGNMENT = 1_000_000;
+    static final int FIRST_GRADE = 100_000_000;
+
+    private static final int BATCH = 1000;
+
+    final Scale scale;
+
+    public GradebookDataGenerator(Scale scale) {
+        if (scale.terms < 1 || scale.terms > 40) {
+            throw new IllegalArgumentException("terms must be between 1 and 40");
+        }
+        if (scale.sectionsPerStudent < 1 || scale.sectionsPerStudent > scale.sections) {
+            throw new IllegalArgumentException("sections-per-student must be between 1 and sections");
+        }
+        if (scale.grades() > Integer.MAX_VALUE - FIRST_GRADE) {
+            throw new IllegalArgumentException("too many grades for int ids " + scale.grades());
+        }
+        this.scale = scale;
+    }
+
+    int termId(int term) {
+        return FIRST_TERM + term;
+    }
+
+    int year(int term) {
+        return 2000 + term / 2;
+    }
+
+    String semester(int term) {
+        return term % 2 == 0 ? "Spring" : "Fall";
+    }
+
+    String courseId(int course) {
+        return String.format("gen%04d", course);
+    }
+
+    String instructorEmail(int instructor) {
+        return "instructor" + instructor + "@gen.edu";
+    }
+
+    int studentId(int student) {
+        return FIRST_STUDENT + student;
+    }
+
+    int sectionNo(int section) {
+        return FIRST_SECTION + section;
+    }
+
+    int termOf(int section) {
+        return section % scale.terms;
+    }
+
+    int assignmentId(int section, int assignment) {
+        return FIRST_ASSIGNMENT + section * scale.assignmentsPerSection + assignment;
+    }
+
+    int enrollmentId(int student, int k) {
+        return FIRST_ENROLLMENT + student * scale.sectionsPerStudent + k;
+    }
+
+    int gradeId(int enrollmentId, int assignment) {
+        return FIRST_GRADE + (enrollmentId - FIRST_ENROLLMENT) * scale.assignmentsPerSection + assignment;
+    }
+
+    // a student's sections are stride apart so every section gets the same number of students
+    int sectionOf(int student, int k) {
+        int stride = scale.sections / scale.sectionsPerStudent;
+        return (student + k * stride) % scale.sections;
+    }
+
+    // enrollment ids of every student in the section
+    List<Integer> enrollmentIds(int section) {
+        int stride = scale.sections / scale.sectionsPerStudent;
+        List<Integer> ids = new ArrayList<>();
+        for (int k = 0; k < scale.sectionsPerStudent; k++) {
+            int first = Math.floorMod(section - k * stride, scale.sections);
+            for (int student = first; student < scale.students; student += scale.sections) {
+                ids.add(enrollmentId(student, k));
+            }
+        }
+        return ids;
+    }
+
+    // grade ids of every student in the section for one of its assignments
+    List<Integer> gradeIds(int section, int assignment) {
+        List<Integer> ids = new ArrayList<>();
+        for (int enrollmentId : enrollmentIds(section)) {
+            ids.add(gradeId(enrollmentId, assignment));
+        }
+        return ids;
+    }
+
+    public void generate(JdbcTemplate jdbc) {
+        Random random = new Random(scale.seed);
+
+        Batch terms = new Batch(jdbc, "insert into term (term_id, tyear, semester, add_date, add_deadline, drop_deadline, " +
+                "start_date, end_date) values (?, ?, ?, ?, ?, ?, ?, ?)");
+        for (int t = 0; t < scale.terms; t++) {
+            int year = year(t);
+            boolean spring = t % 2 == 0;
+            terms.add(termId(t), year, semester(t),
+                    Date.valueOf(spring ? (year - 1) + "-11-01" : year + "-05-01"),
+                    Date.valueOf(spring ? year + "-01-30" : year + "-08-30"),
+                    Date.valueOf(spring ? year + "-01-30" : year + "-08-30"),
+                    Date.valueOf(spring ? year + "-01-15" : year + "-08-15"),
+                    Date.valueOf(spring ? year + "-05-17" : year + "-12-17"));
+        }
+        terms.flush();
+
+        Batch courses = new Batch(jdbc, "insert into course (course_id, title, credits) values (?, ?, ?)");
+        for (int c = 0; c < scale.courses; c++) {
+            courses.add(courseId(c), "Generated Course " + c, 3 + c % 2);
+        }
+        courses.flush();
+
+        Batch users = new Batch(jdbc, "insert into user_table (id, name, email, type) values (?, ?, ?, ?)");
+        for (int i = 0; i < scale.instructors; i++) {
+            users.add(FIRST_INSTRUCTOR + i, "instructor " + i, instructorEmail(i), "INSTRUCTOR");
+        }
+        for (int i = 0; i < scale.students; i++) {
+            users.add(studentId(i), String.format("student %07d", i), "student" + i + "@gen.edu", "STUDENT");
+        }
+        users.flush();
+
+        Batch sections = new Batch(jdbc, "insert into section (section_no, course_id, sec_id, term_id, building, room, " +
+                "times, instructor_email) values (?, ?, ?, ?, ?, ?, ?, ?)");
+        Batch assignments = new Batch(jdbc, "insert into assignment (assignment_id, section_no, title, due_date) values (?, ?, ?, ?)",
+                sections);
+        for (int s = 0; s < scale.sections; s++) {
+            int term = termOf(s);
+            sections.add(sectionNo(s), courseId(s % scale.courses), s / scale.courses + 1, termId(term),
+                    "052", String.valueOf(100 + s % 40), "M W 10:00-11:50", instructorEmail(s % scale.instructors));
+            for (int a = 0; a < scale.assignmentsPerSection; a++) {
+                // due dates spread over the 15 weeks after the start of term
+                int month = (term % 2 == 0 ? 1 : 8) + (a * 4 / Math.max(1, scale.assignmentsPerSection));
+                assignments.add(assignmentId(s, a), sectionNo(s), "homework " + (a + 1),
+                        Date.valueOf(String.format("%d-%02d-%02d", year(term), month, 1 + a % 28)));
+            }
+        }
+        sections.flush();
+        assignments.flush();
+
+        Batch enrollments = new Batch(jdbc, "insert into enrollment (enrollment_id, section_no, user_id) values (?, ?, ?)");
+        Batch grades = new Batch(jdbc, "insert into grade (grade_id, enrollment_id, assignment_id, score) values (?, ?, ?, ?)",
+                enrollments);
+        for (int i = 0; i < scale.students; i++) {
+            for (int k = 0; k < scale.sectionsPerStudent; k++) {
+                int section = sectionOf(i, k);
+                int enrollmentId = enrollmentId(i, k);
+                enrollments.add(enrollmentId, sectionNo(section), studentId(i));
+                for (int a = 0; a < scale.assignmentsPerSection; a++) {
+                    Integer score = random.nextInt(10) == 0 ? null : 40 + random.nextInt(61);
+                    grades.add(gradeId(enrollmentId, a), enrollmentId, assignmentId(section, a), score);
+                }
+            }
+        }
+        enrollments.flush();
+        grades.flush();
+
+        jdbc.update("insert into grade_summary (enrollment_id, graded_count, score_sum) " +
+                "select enrollment_id, count(score), coalesce(sum(score), 0) from grade " +
+                "where enrollment_id >= ? group by enrollment_id", FIRST_ENROLLMENT);
+        jdbc.execute("analyze");
+    }
+
+    // rows for one insert statement, sent to the database BATCH at a time.  The rows of
+    // the parent batch are sent first so foreign keys always find their row
+    private static class Batch {
+        private final JdbcTemplate jdbc;
+        private final String sql;
+        private final Batch parent;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        Batch(JdbcTemplate jdbc, String sql) {
+            this(jdbc, sql, null);
+        }
+
+        Batch(JdbcTemplate jdbc, String sql, Batch parent) {
+            this.jdbc = jdbc;
+            this.sql = sql;
+            this.parent = parent;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= BATCH) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (parent != null) {
+                parent.flush();
+            }
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cst438.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/*
+ * The gradebook endpoints end to end through the Spring MVC dispatcher:
+ * request mapping, controller, repositories, H2 and JSON serialization.
+ * Only the network is left out.  Run with -prof gc for allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GradebookEndpointBenchmark {
+
+    @Benchmark
+    public int getAssignmentGrades(SeededGradebook gradebook) throws Exception {
+        int assignmentId = gradebook.randomAssignment(gradebook.randomSection());
+        return status(gradebook, MockMvcRequestBuilders.get("/assignments/" + assignmentId + "/grades")
+                .accept(MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public int updateGrades(SeededGradebook gradebook) throws Exception {
+        int section = gradebook.randomSection();
+        List<Integer> gradeIds = gradebook.data.gradeIds(section, gradebook.randomAssignmentIndex());
+        StringBuilder json = new StringBuilder("[");
+        for (int gradeId : gradeIds) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"gradeId\":").append(gradeId)
+                    .append(",\"score\":").append(ThreadLocalRandom.current().nextInt(101)).append('}');
+        }
+        json.append(']');
+        return status(gradebook, MockMvcRequestBuilders.put("/grades")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json.toString()));
+    }
+
+    @Benchmark
+    public int getStudentAssignments(SeededGradebook gradebook) throws Exception {
+        GradebookDataGenerator data = gradebook.data;
+        int student = gradebook.randomStudent();
+        int term = data.termOf(data.sectionOf(student, 0));
+        return status(gradebook, MockMvcRequestBuilders.get("/assignments?studentId=" + data.studentId(student)
+                        + "&year=" + data.year(term) + "&semester=" + data.semester(term))
+                .accept(MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public int getEnrollments(SeededGradebook gradebook) throws Exception {
+        int sectionNo = gradebook.data.sectionNo(gradebook.randomSection());
+        return status(gradebook, MockMvcRequestBuilders.get("/sections/" + sectionNo + "/enrollments")
+                .accept(MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public int updateEnrollmentGrade(SeededGradebook gradebook) throws Exception {
+        int section = gradebook.randomSection();
+        StringBuilder json = new StringBuilder("[");
+        for (int enrollmentId : gradebook.data.enrollmentIds(section)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"enrollmentId\":").append(enrollmentId).append(",\"grade\":\"B\"}");
+        }
+        json.append(']');
+        return status(gradebook, MockMvcRequestBuilders.put("/enrollments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json.toString()));
+    }
+
+    static int status(SeededGradebook gradebook, RequestBuilder request) throws Exception {
+        int status = gradebook.mvc.perform(request).andReturn().getResponse().getStatus();
+        if (status != 200) {
+            throw new IllegalStateException("Request failed with status " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,222 @@
+package com.cst438.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/*
+ * Replays a mix of gradebook requests at a fixed rate against the embedded server
+ * filled by GradebookDataGenerator, and prints p50, p99 and p99.9 latency per endpoint.
+ * Everything runs in one JVM with the in-memory database, no network access is needed.
+ *
+ * Requests are sent on a fixed schedule whether or not earlier ones have finished, and
+ * latency is measured from the time a request was due, so a stalled server shows up
+ * in the percentiles instead of slowing the driver down.
+ *
+ * Options: --rps (200), --duration seconds (60), --warmup seconds (10) and the
+ * GradebookDataGenerator.Scale options.  The same options replay the same requests.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec@load -Dload.args="--rps 500 --students 50000"
+ */
+public class GradebookLoadDriver {
+
+    // an endpoint, how often it appears in the mix and how to build one request for it
+    record Endpoint(String name, int weight, Function<Random, HttpRequest.Builder> request) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int rps = Integer.parseInt(options.getOrDefault("rps", "200"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        GradebookDataGenerator data = new GradebookDataGenerator(GradebookDataGenerator.Scale.of(options));
+
+        try (ConfigurableApplicationContext context = SeededGradebook.startApplication()) {
+            long started = System.nanoTime();
+            data.generate(context.getBean(JdbcTemplate.class));
+            System.out.printf("Generated %s with %,d grades in %d s%n", data.scale,
+                    data.scale.grades(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<Endpoint> mix = mix(data, base);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("Warming up for %d s at %d requests/s%n", warmup, rps);
+            run(client, mix, rps, warmup, new Random(data.scale.seed() + 1), null);
+            System.out.printf("Measuring for %d s at %d requests/s%n", duration, rps);
+            Map<String, Latencies> results = new HashMap<>();
+            for (Endpoint endpoint : mix) {
+                results.put(endpoint.name(), new Latencies());
+            }
+            run(client, mix, rps, duration, new Random(data.scale.seed()), results);
+            report(mix, results);
+        }
+    }
+
+    static List<Endpoint> mix(GradebookDataGenerator data, String base) {
+        GradebookDataGenerator.Scale scale = data.scale;
+        List<Endpoint> mix = new ArrayList<>();
+        // students checking their assignments are most of the traffic
+        mix.add(new Endpoint("getStudentAssignments", 35, random -> {
+            int student = random.nextInt(scale.students());
+            int term = data.termOf(data.sectionOf(student, 0));
+            return get(base + "/assignments?studentId=" + data.studentId(student)
+                    + "&year=" + data.year(term) + "&semester=" + data.semester(term));
+        }));
+        mix.add(new Endpoint("getAssignmentGrades", 25, random -> {
+            int section = random.nextInt(scale.sections());
+            return get(base + "/assignments/" + data.assignmentId(section, random.nextInt(scale.assignmentsPerSection())) + "/grades");
+        }));
+        mix.add(new Endpoint("getEnrollments", 15, random ->
+                get(base + "/sections/" + data.sectionNo(random.nextInt(scale.sections())) + "/enrollments")));
+        mix.add(new Endpoint("updateGrades", 15, random -> {
+            int section = random.nextInt(scale.sections());
+            StringBuilder json = new StringBuilder("[");
+            for (int gradeId : data.gradeIds(section, random.nextInt(scale.assignmentsPerSection()))) {
+                json.append(json.length() > 1 ? "," : "")
+                        .append("{\"gradeId\":").append(gradeId).append(",\"score\":").append(random.nextInt(101)).append('}');
+            }
+            return put(base + "/grades", json.append(']').toString());
+        }));
+        mix.add(new Endpoint("updateEnrollmentGrade", 5, random -> {
+            int section = random.nextInt(scale.sections());
+            StringBuilder json = new StringBuilder("[");
+            for (int enrollmentId : data.enrollmentIds(section)) {
+                json.append(json.length() > 1 ? "," : "")
+                        .append("{\"enrollmentId\":").append(enrollmentId).append(",\"grade\":\"B\"}");
+            }
+            return put(base + "/enrollments", json.append(']').toString());
+        }));
+        mix.add(new Endpoint("getSectionsForInstructor", 5, random -> {
+            int section = random.nextInt(scale.sections());
+            int term = data.termOf(section);
+            return get(base + "/sections?email=" + data.instructorEmail(section % scale.instructors())
+                    + "&year=" + data.year(term) + "&semester=" + data.semester(term));
+        }));
+        return mix;
+    }
+
+    // sends rps requests a second for the given time.  results is null while warming up
+    static void run(HttpClient client, List<Endpoint> mix, int rps, int seconds,
+                    Random random, Map<String, Latencies> results) {
+        int totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long count = (long) rps * seconds;
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (long n = 0; n < count; n++) {
+            Endpoint endpoint = pick(mix, random.nextInt(totalWeight));
+            HttpRequest request = endpoint.request().apply(random).timeout(Duration.ofSeconds(30)).build();
+            long due = start + n * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (results != null) {
+                            boolean ok = error == null && response.statusCode() == 200;
+                            results.get(endpoint.name()).record(System.nanoTime() - due, ok);
+                        }
+                        return null;
+                    }));
+            pending.removeIf(CompletableFuture::isDone);
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    static void report(List<Endpoint> mix, Map<String, Latencies> results) {
+        System.out.printf("%-26s %8s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint endpoint : mix) {
+            Latencies l = results.get(endpoint.name());
+            System.out.printf("%-26s %8d %7d %10.2f %10.2f %10.2f %10.2f%n", endpoint.name(), l.count(), l.errors(),
+                    l.percentile(0.50), l.percentile(0.99), l.percentile(0.999), l.percentile(1.0));
+        }
+    }
+
+    private static Endpoint pick(List<Endpoint> mix, int r) {
+        for (Endpoint endpoint : mix) {
+            r -= endpoint.weight();
+            if (r < 0) {
+                return endpoint;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private static HttpRequest.Builder get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).header("Accept", "application/json").GET();
+    }
+
+    private static HttpRequest.Builder put(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri)).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    // --name value pairs
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value but got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    // every latency of one endpoint in nanoseconds
+    static class Latencies {
+        private long[] values = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+
+        // nearest rank, in milliseconds
+        synchronized double percentile(double q) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(q * count);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.cst438.benchmark;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import com.cst438.domain.AssignmentRepository;
+import com.cst438.domain.EnrollmentRepository;
+import com.cst438.domain.Grade;
+import com.cst438.domain.GradeRepository;
+import com.cst438.domain.Section;
+import com.cst438.domain.SectionRepository;
+import com.cst438.dto.AssignmentStudentDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.EnrollmentGradeResultDTO;
+import com.cst438.dto.GradeDTO;
+import com.cst438.service.GradeBatchWriter;
+
+/*
+ * The queries and batch writes behind the gradebook endpoints, called directly
+ * on the repositories and GradeBatchWriter.  Compared with GradebookEndpointBenchmark
+ * this shows how much of a request is spent in the data layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GradebookRepositoryBenchmark {
+
+    static final PageRequest PAGE = PageRequest.of(0, 100);
+    static final Date FIRST_DATE = Date.valueOf("1900-01-01");
+    static final Date NO_DUE_DATE = Date.valueOf("9999-12-31");
+
+    SeededGradebook gradebook;
+    GradeRepository gradeRepository;
+    AssignmentRepository assignmentRepository;
+    EnrollmentRepository enrollmentRepository;
+    SectionRepository sectionRepository;
+    GradeBatchWriter gradeBatchWriter;
+
+    @Setup(Level.Trial)
+    public void setup(SeededGradebook gradebook) {
+        this.gradebook = gradebook;
+        gradeRepository = gradebook.bean(GradeRepository.class);
+        assignmentRepository = gradebook.bean(AssignmentRepository.class);
+        enrollmentRepository = gradebook.bean(EnrollmentRepository.class);
+        sectionRepository = gradebook.bean(SectionRepository.class);
+        gradeBatchWriter = gradebook.bean(GradeBatchWriter.class);
+    }
+
+    @Benchmark
+    public Slice<Grade> findGradesByAssignment() {
+        int assignmentId = gradebook.randomAssignment(gradebook.randomSection());
+        return gradeRepository.findByAssignmentIdAfter(assignmentId, "", 0, PAGE);
+    }
+
+    @Benchmark
+    public void updateScores() {
+        int section = gradebook.randomSection();
+        List<GradeDTO> dlist = new ArrayList<>();
+        for (int gradeId : gradebook.data.gradeIds(section, gradebook.randomAssignmentIndex())) {
+            dlist.add(new GradeDTO(gradeId, null, null, null, null, 0, ThreadLocalRandom.current().nextInt(101)));
+        }
+        gradeBatchWriter.updateScores(dlist);
+    }
+
+    @Benchmark
+    public Slice<AssignmentStudentDTO> findStudentAssignments() {
+        GradebookDataGenerator data = gradebook.data;
+        int student = gradebook.randomStudent();
+        int term = data.termOf(data.sectionOf(student, 0));
+        return assignmentRepository.findByStudentIdAndYearAndSemesterAfter(data.studentId(student),
+                data.year(term), data.semester(term), FIRST_DATE, 0, NO_DUE_DATE, PAGE);
+    }
+
+    @Benchmark
+    public Slice<EnrollmentDTO> findEnrollmentsBySection() {
+        int sectionNo = gradebook.data.sectionNo(gradebook.randomSection());
+        return enrollmentRepository.findEnrollmentDTOsBySectionNoAfter(sectionNo, "", 0, PAGE);
+    }
+
+    @Benchmark
+    public Slice<Section> findOpenSections() {
+        return sectionRepository.findByOpenOrderByCourseIdSectionId("", 0, 0, PAGE);
+    }
+
+    @Benchmark
+    public List<EnrollmentGradeResultDTO> updateFinalGrades() {
+        int section = gradebook.randomSection();
+        List<EnrollmentDTO> dlist = new ArrayList<>();
+        for (int enrollmentId : gradebook.data.enrollmentIds(section)) {
+            dlist.add(new EnrollmentDTO(enrollmentId, "B", 0, null, null, null, null,
+                    0, 0, null, null, null, 0, 0, null));
+        }
+        return gradeBatchWriter.updateFinalGrades(dlist);
+    }
+}
@@ -0,0 +1,29 @@
+package com.cst438.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * The seeded gradebook on the prod profile settings, with the Hikari pool size as a
+ * benchmark parameter.  The database is an in-memory H2 in the same PostgreSQL mode as the
+ * prod file database, so the runs compare pool sizes and not disk speed.
+ */
+@State(Scope.Benchmark)
+public class PooledGradebook extends SeededGradebook {
+
+    @Param({"2", "4", "8", "16", "32"})
+    int poolSize;
+
+    @Override
+    String[] arguments() {
+        return new String[] {
+                "--spring.profiles.active=prod",
+                "--spring.datasource.url=jdbc:h2:mem:pooled;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;QUERY_CACHE_SIZE=64",
+                "--spring.sql.init.data-locations=classpath:data.sql",
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--spring.datasource.hikari.minimum-idle=" + poolSize
+        };
+    }
+}
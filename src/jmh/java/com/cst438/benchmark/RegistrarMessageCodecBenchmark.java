@@ -0,0 +1,61 @@
+package com.cst438.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.service.RegistrarMessageCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Compares the shared registrar codec with building a new ObjectMapper
+ * for every message, which is what RegistrarServiceProxy used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrarMessageCodecBenchmark {
+
+    EnrollmentDTO enrollment;
+    String json;
+
+    @Setup
+    public void setup() {
+        enrollment = new EnrollmentDTO(10001, "A", 7001, "thomas edison", "tedison@csumb.edu",
+                "cst363", "Introduction to Database", 1, 1001, "052", "104", "M W 10:00-11:50", 4, 2024, "Fall");
+        json = RegistrarMessageCodec.encode(enrollment);
+    }
+
+    @Benchmark
+    public String encodeNewMapper() throws Exception {
+        return new ObjectMapper().writeValueAsString(enrollment);
+    }
+
+    @Benchmark
+    public String encodeSharedCodec() {
+        return RegistrarMessageCodec.encode(enrollment);
+    }
+
+    @Benchmark
+    public EnrollmentDTO decodeNewMapper() throws Exception {
+        return new ObjectMapper().readValue(json, EnrollmentDTO.class);
+    }
+
+    @Benchmark
+    public EnrollmentDTO decodeSharedCodec() {
+        return RegistrarMessageCodec.decode(json, EnrollmentDTO.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cst438.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.cst438.Cst438Assignment2Main;
+
+/*
+ * The gradebook application started once per benchmark run on its in-memory H2
+ * database, with GradebookDataGenerator data at benchmark scale loaded on top of data.sql.
+ * Rabbit listeners and the outbox relay are kept idle so only the request path is measured.
+ */
+@State(Scope.Benchmark)
+public class SeededGradebook {
+
+    GradebookDataGenerator data = new GradebookDataGenerator(GradebookDataGenerator.Scale.BENCHMARK);
+    ConfigurableApplicationContext context;
+    MockMvc mvc;
+    JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = startApplication(arguments());
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        data.generate(jdbcTemplate);
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    // outbox rows written by final grade uploads are never relayed here
+    @TearDown(Level.Iteration)
+    public void clearOutbox() {
+        jdbcTemplate.update("delete from outbox");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // extra application arguments, overridden by benchmarks that compare configurations
+    String[] arguments() {
+        return new String[0];
+    }
+
+    // on a random port, without a RabbitMQ broker.  Passed as arguments because default
+    // properties would lose to application.properties
+    static ConfigurableApplicationContext startApplication(String... arguments) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--gradebook.statement-budget.fail=false",
+                "--logging.level.root=WARN",
+                "--spring.rabbitmq.listener.simple.auto-startup=false",
+                "--registrar.outbox.poll-interval=PT1H",
+                "--spring.jpa.properties.hibernate.generate_statistics=false"));
+        args.addAll(List.of(arguments));
+        return new SpringApplicationBuilder(Cst438Assignment2Main.class).run(args.toArray(new String[0]));
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int randomSection() {
+        return ThreadLocalRandom.current().nextInt(data.scale.sections());
+    }
+
+    int randomStudent() {
+        return ThreadLocalRandom.current().nextInt(data.scale.students());
+    }
+
+    int randomAssignment(int section) {
+        return data.assignmentId(section, randomAssignmentIndex());
+    }
+
+    int randomAssignmentIndex() {
+        return ThreadLocalRandom.current().nextInt(data.scale.assignmentsPerSection());
+    }
+}
@@ -0,0 +1,45 @@
+package com.cst438.benchmark;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * The seeded gradebook behind its real Tomcat connector, with requests on virtual threads
+ * or on the platform thread pool.  Virtual threads need the java21 profile, on a Java 17
+ * build both values run the platform thread pool.
+ */
+@State(Scope.Benchmark)
+public class ThreadedGradebook extends SeededGradebook {
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    HttpClient client;
+    String base;
+
+    @Override
+    String[] arguments() {
+        return new String[] {
+                "--gradebook.threads.virtual=" + virtualThreads,
+                // the default platform pool, virtual threads ignore it
+                "--server.tomcat.threads.max=200"
+        };
+    }
+
+    @Override
+    @Setup(Level.Trial)
+    public void start() {
+        super.start();
+        base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+}
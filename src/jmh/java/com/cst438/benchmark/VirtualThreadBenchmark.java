@@ -0,0 +1,42 @@
+package com.cst438.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Grade roster throughput over HTTP with 256 concurrent clients, more than the 200
+ * Tomcat platform threads, comparing virtual and platform request threads.
+ *   mvn -Pbenchmark,java21 test-compile exec:exec -Djmh.args="VirtualThreadBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(256)
+public class VirtualThreadBenchmark {
+
+    @Benchmark
+    public int getAssignmentGrades(ThreadedGradebook gradebook) throws Exception {
+        int assignmentId = gradebook.randomAssignment(gradebook.randomSection());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(gradebook.base + "/assignments/" + assignmentId + "/grades"))
+                .header("Accept", "application/json")
+                .build();
+        HttpResponse<byte[]> response = gradebook.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Request failed with status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -2,8 +2,10 @@ package com.cst438;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Cst438Assignment2Main {
 
 	public static void main(String[] args) {
@@ -7,7 +7,10 @@ import java.util.List;
 import com.cst438.domain.*;
 import com.cst438.dto.SectionDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,11 +23,17 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.cst438.dto.AssignmentDTO;
+import com.cst438.dto.AssignmentStatsDTO;
 import com.cst438.dto.AssignmentStudentDTO;
 import com.cst438.dto.GradeDTO;
+import com.cst438.monitoring.StatementBudget;
+import com.cst438.monitoring.StatementCounter;
+import com.cst438.service.GradeBatchWriter;
+import com.cst438.service.InstructorResolver;
+import com.cst438.service.ScoreHistogram;
 
 @RestController
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = PageCursor.NEXT_CURSOR_HEADER)
 public class AssignmentController {
 
 
@@ -40,12 +49,26 @@ public class AssignmentController {
     GradeRepository gradeRepository;
 
     @Autowired
-    UserRepository userRepository;
+    GradeBatchWriter gradeBatchWriter;
 
+    @Autowired
+    InstructorResolver instructorResolver;
+
+    // assignments ordered by due date, limit at a time.  The X-Next-Cursor response
+    // header is passed back as cursor to get the next page
     @GetMapping("/sections/{secNo}/assignments")
-    public List<AssignmentDTO> getAssignments(@PathVariable("secNo") int secNo) {
-        List<Assignment> assignments = assignmentRepository.findBySectionNoOrderByDueDate(secNo);
-        if (assignments.isEmpty()) {
+    @StatementBudget(5)
+    public ResponseEntity<List<AssignmentDTO>> getAssignments(
+            @PathVariable("secNo") int secNo,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        PageCursor after = PageCursor.parse(cursor, 2);
+        Slice<Assignment> assignments = assignmentRepository.findBySectionNoAfter(secNo,
+                after == null ? PageCursor.FIRST_DATE : after.date(0),
+                after == null ? PageCursor.FIRST_ID : after.integer(1),
+                PageCursor.NO_DUE_DATE,
+                PageCursor.pageRequest(limit));
+        if (after == null && assignments.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Section not found or no assignments for section");
         }
         List<AssignmentDTO> assignmentDTOs = new ArrayList<>();
@@ -53,16 +76,62 @@ public class AssignmentController {
             AssignmentDTO dto = new AssignmentDTO(
                     a.getAssignmentId(),
                     a.getTitle(),
-                    a.getDueDate().toString(),
+                    a.getDueDate() == null ? null : a.getDueDate().toString(),
                     a.getSection().getCourse().getCourseId(),
                     a.getSection().getSecId(),
                     a.getSection().getSectionNo()
             );
             assignmentDTOs.add(dto);
         }
-        return assignmentDTOs;
+        String next = null;
+        if (assignments.hasNext()) {
+            Assignment last = assignments.getContent().get(assignments.getNumberOfElements() - 1);
+            Date dueDate = last.getDueDate() == null ? PageCursor.NO_DUE_DATE : last.getDueDate();
+            next = PageCursor.encode(dueDate.toString(), last.getAssignmentId());
+        }
+        return PageCursor.page(assignmentDTOs, next);
     }
 
+    // instructor gets min, max, mean, median and a histogram of the scores for each assignment
+    // user must be instructor for the section
+    // the database returns grade counts by score, no grade rows are loaded
+    @GetMapping("/sections/{secNo}/assignments/stats")
+    @StatementBudget(3)
+    public List<AssignmentStatsDTO> getAssignmentStats(@PathVariable("secNo") int secNo) {
+        List<ScoreCount> rows = assignmentRepository.findScoreCountsBySectionNo(secNo);
+        if (rows.isEmpty() && !sectionRepository.existsById(secNo)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Section not found "+secNo);
+        }
+        List<AssignmentStatsDTO> dlist = new ArrayList<>();
+        int i = 0;
+        while (i < rows.size()) {
+            // rows of one assignment are next to each other
+            ScoreCount first = rows.get(i);
+            ScoreHistogram histogram = new ScoreHistogram();
+            long ungraded = 0;
+            for (; i < rows.size() && rows.get(i).assignmentId() == first.assignmentId(); i++) {
+                ScoreCount row = rows.get(i);
+                if (row.score() == null) {
+                    ungraded += row.count();
+                } else {
+                    histogram.add(row.score(), row.count());
+                }
+            }
+            dlist.add(new AssignmentStatsDTO(
+                    first.assignmentId(),
+                    first.title(),
+                    first.dueDate(),
+                    histogram.count(),
+                    ungraded,
+                    histogram.min(),
+                    histogram.max(),
+                    histogram.mean(),
+                    histogram.percentile(0.5),
+                    histogram.buckets(10)
+            ));
+        }
+        return dlist;
+    }
 
     // add assignment
     // user must be instructor of the section
@@ -138,94 +207,110 @@ public class AssignmentController {
         assignmentRepository.delete(assignment);
     }
 
-    // instructor gets grades for assignment ordered by student name
+    // instructor gets grades for assignment ordered by student name, limit at a time
     // user must be instructor for the section
     @GetMapping("/assignments/{assignmentId}/grades")
-    public List<GradeDTO> getAssignmentGrades(@PathVariable("assignmentId") int assignmentId) {
+    @StatementBudget(3)
+    @Transactional
+    public ResponseEntity<List<GradeDTO>> getAssignmentGrades(
+            @PathVariable("assignmentId") int assignmentId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        PageCursor after = PageCursor.parse(cursor, 2);
         Assignment assignment = assignmentRepository.findById(assignmentId).orElseThrow(() ->
                 new ResponseStatusException(HttpStatus.BAD_REQUEST, "Assignment not found"));
 
+        // create missing grades for the whole section in one batch when the first page is read
+        // and load the roster with its students in one select.  The backfill costs a few
+        // statements per 50 students the first time, so it is not counted against the budget
+        if (after == null) {
+            StatementCounter.uncounted(() -> gradeBatchWriter.createMissingGrades(assignment));
+        }
+        Slice<Grade> grades = gradeRepository.findByAssignmentIdAfter(assignment.getAssignmentId(),
+                after == null ? PageCursor.FIRST_STRING : after.string(0),
+                after == null ? PageCursor.FIRST_ID : after.integer(1),
+                PageCursor.pageRequest(limit));
+
         List<GradeDTO> gradeDTOs = new ArrayList<>();
-        List<Enrollment> enrollments = enrollmentRepository.findEnrollmentsBySectionNoOrderByStudentName(assignment.getSection().getSectionNo());
-        for (Enrollment e : enrollments) {
-            Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(e.getEnrollmentId(), assignment.getAssignmentId());
-            if (grade == null) {
-                grade = new Grade();
-                grade.setAssignment(assignment);
-                grade.setEnrollment(e);
-
-                grade.setScore(0);
-                //grade.setScore(null);
-                grade = gradeRepository.save(grade);
-            }
+        for (Grade grade : grades) {
             gradeDTOs.add(new GradeDTO(grade.getGradeId(), grade.getEnrollment().getStudent().getName(),
                     grade.getEnrollment().getStudent().getEmail(), grade.getAssignment().getTitle(),
                     grade.getAssignment().getSection().getCourse().getCourseId(), grade.getAssignment().getSection().getSecId(), grade.getScore()));
         }
 
-        return gradeDTOs;
+        String next = null;
+        if (grades.hasNext()) {
+            GradeDTO last = gradeDTOs.get(gradeDTOs.size() - 1);
+            next = PageCursor.encode(last.studentName(), last.gradeId());
+        }
+        return PageCursor.page(gradeDTOs, next);
     }
 
+    // instructor uploads scores for an assignment
+    // all scores are applied or none of them
     @PutMapping("/grades")
+    @StatementBudget(6)
     public void updateGrades(@RequestBody List<GradeDTO> dlist) {
-        for (GradeDTO dto : dlist) {
-            Grade grade = gradeRepository.findById(dto.gradeId()).orElseThrow(() ->
-                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Grade not found " + dto.gradeId()));
-            grade.setScore(dto.score());
-            gradeRepository.save(grade);
-        }
+        gradeBatchWriter.updateScores(dlist);
     }
 
     @GetMapping("/assignments")
-    public List<AssignmentStudentDTO> getStudentAssignments(@RequestParam("studentId") int studentId,
+    @StatementBudget(3)
+    public ResponseEntity<List<AssignmentStudentDTO>> getStudentAssignments(@RequestParam("studentId") int studentId,
                                                             @RequestParam("year") int year,
-                                                            @RequestParam("semester") String semester) {
-        List<Assignment> assignments = assignmentRepository.findByStudentIdAndYearAndSemesterOrderByDueDate(studentId, year, semester);
-        if (assignments.isEmpty()) {
+                                                            @RequestParam("semester") String semester,
+                                                            @RequestParam(name = "limit", required = false) Integer limit,
+                                                            @RequestParam(name = "cursor", required = false) String cursor) {
+        PageCursor after = PageCursor.parse(cursor, 2);
+        Slice<AssignmentStudentDTO> assignmentStudentDTOs = assignmentRepository.findByStudentIdAndYearAndSemesterAfter(
+                studentId, year, semester,
+                after == null ? PageCursor.FIRST_DATE : after.date(0),
+                after == null ? PageCursor.FIRST_ID : after.integer(1),
+                PageCursor.NO_DUE_DATE,
+                PageCursor.pageRequest(limit));
+        if (after == null && assignmentStudentDTOs.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No assignments found for the given criteria");
         }
-        List<AssignmentStudentDTO> assignmentStudentDTOs = new ArrayList<>();
-        for (Assignment a : assignments) {
-            Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(a.getSection().getEnrollments().stream()
-                    .filter(e -> e.getStudent().getId() == studentId)
-                    .findFirst().orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found for student")).getEnrollmentId(), a.getAssignmentId());
-            Integer score = (grade != null) ? grade.getScore() : null;
-            assignmentStudentDTOs.add(new AssignmentStudentDTO(a.getAssignmentId(), a.getTitle(), a.getDueDate(),
-                    a.getSection().getCourse().getCourseId(), a.getSection().getSecId(), score));
+        String next = null;
+        if (assignmentStudentDTOs.hasNext()) {
+            AssignmentStudentDTO last = assignmentStudentDTOs.getContent().get(assignmentStudentDTOs.getNumberOfElements() - 1);
+            Date dueDate = last.dueDate() == null ? PageCursor.NO_DUE_DATE : last.dueDate();
+            next = PageCursor.encode(dueDate.toString(), last.assignmentId());
         }
-        return assignmentStudentDTOs;
+        return PageCursor.page(assignmentStudentDTOs.getContent(), next);
     }
 
-    // get Sections for an instructor
+    // get Sections for an instructor, ordered by course id and section id, limit at a time
     @GetMapping("/sections")
-    public List<SectionDTO> getSectionsForInstructor(
+    @StatementBudget(3)
+    public ResponseEntity<List<SectionDTO>> getSectionsForInstructor(
             @RequestParam("email") String instructorEmail,
             @RequestParam("year") int year ,
-            @RequestParam("semester") String semester )  {
-
-
-        List<Section> sections = sectionRepository.findByInstructorEmailAndYearAndSemester(instructorEmail, year, semester);
-
-        List<SectionDTO> dto_list = new ArrayList<>();
-        for (Section s : sections) {
-            User instructor = null;
-            if (s.getInstructorEmail()!=null) {
-                instructor = userRepository.findByEmail(s.getInstructorEmail());
+            @RequestParam("semester") String semester,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor)  {
+        PageCursor after = PageCursor.parse(cursor, 3);
+        Slice<SectionDTO> sections = sectionRepository.findSectionDTOsByInstructorEmailAndYearAndSemesterAfter(
+                instructorEmail, year, semester,
+                after == null ? PageCursor.FIRST_STRING : after.string(0),
+                after == null ? PageCursor.FIRST_ID : after.integer(1),
+                after == null ? PageCursor.FIRST_ID : after.integer(2),
+                PageCursor.pageRequest(limit));
+        List<SectionDTO> sectionDTOs = new ArrayList<>();
+        if (sections.hasContent()) {
+            User instructor = instructorResolver.findByEmail(instructorEmail);
+            for (SectionDTO s : sections) {
+                sectionDTOs.add(new SectionDTO(s.secNo(), s.year(), s.semester(), s.courseId(), s.title(), s.secId(),
+                        s.building(), s.room(), s.times(),
+                        (instructor != null) ? instructor.getName() : "",
+                        (instructor != null) ? instructor.getEmail() : ""));
             }
-            dto_list.add(new SectionDTO(
-                    s.getSectionNo(),
-                    s.getTerm().getYear(),
-                    s.getTerm().getSemester(),
-                    s.getCourse().getCourseId(),
-                    s.getCourse().getTitle(),
-                    s.getSecId(),
-                    s.getBuilding(),
-                    s.getRoom(),
-                    s.getTimes(),
-                    (instructor!=null) ? instructor.getName() : "",
-                    (instructor!=null) ? instructor.getEmail() : ""
-            ));
         }
-        return dto_list;
+        String next = null;
+        if (sections.hasNext()) {
+            SectionDTO last = sections.getContent().get(sections.getNumberOfElements() - 1);
+            next = PageCursor.encode(last.courseId(), last.secId(), last.secNo());
+        }
+        return PageCursor.page(sectionDTOs, next);
     }
 }
@@ -1,27 +1,32 @@
 package com.cst438.controller;
 
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.cst438.domain.Enrollment;
 import com.cst438.domain.EnrollmentRepository;
-import com.cst438.domain.Section;
+import com.cst438.domain.GradeSummaryRepository;
 import com.cst438.domain.SectionRepository;
 import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.EnrollmentGradeResultDTO;
+import com.cst438.dto.GradeSummaryDTO;
+import com.cst438.monitoring.StatementBudget;
+import com.cst438.service.GradeBatchWriter;
 
 @RestController
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = PageCursor.NEXT_CURSOR_HEADER)
 public class EnrollmentController {
     @Autowired
     EnrollmentRepository enrollmentRepository;
@@ -29,55 +34,58 @@ public class EnrollmentController {
     @Autowired
     SectionRepository sectionRepository;
 
-    // instructor downloads student enrollments for a section, ordered by student name
+    @Autowired
+    GradeSummaryRepository gradeSummaryRepository;
+
+    @Autowired
+    GradeBatchWriter gradeBatchWriter;
+
+    // instructor downloads student enrollments for a section, ordered by student name, limit at a time
     // user must be instructor for the section
     @GetMapping("/sections/{sectionNo}/enrollments")
-    public List<EnrollmentDTO> getEnrollments(
-            @PathVariable("sectionNo") int sectionNo ) {
+    @StatementBudget(3)
+    public ResponseEntity<List<EnrollmentDTO>> getEnrollments(
+            @PathVariable("sectionNo") int sectionNo,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor) {
 
-        Section theSec = sectionRepository.findById(sectionNo).orElse(null);
-        if (theSec == null) {
-            throw  new ResponseStatusException( HttpStatus.NOT_FOUND, "Section not found "+sectionNo);
-        }
-        List<Enrollment> enrollments = enrollmentRepository.findEnrollmentsBySectionNoOrderByStudentName(sectionNo);
-        if (enrollments.size() < 1) {
-            throw  new ResponseStatusException( HttpStatus.NOT_FOUND, "Nobody has enrolled in section "+sectionNo);
-        } else {
-            List<EnrollmentDTO> dto_list = new ArrayList<>();
-            for (Enrollment e : enrollments) {
-                dto_list.add(new EnrollmentDTO(e.getEnrollmentId(),
-                        e.getGrade(),
-                        e.getStudent().getId(),
-                        e.getStudent().getName(),
-                        e.getStudent().getEmail(),
-                        e.getSection().getCourse().getCourseId(),
-                        e.getSection().getCourse().getTitle(),
-                        e.getSection().getSecId(),
-                        e.getSection().getSectionNo(),
-                        e.getSection().getBuilding(),
-                        e.getSection().getRoom(),
-                        e.getSection().getTimes(),
-                        e.getSection().getCourse().getCredits(),
-                        e.getSection().getTerm().getYear(),
-                        e.getSection().getTerm().getSemester()
-                ));
+        PageCursor after = PageCursor.parse(cursor, 2);
+        Slice<EnrollmentDTO> dto_list = enrollmentRepository.findEnrollmentDTOsBySectionNoAfter(sectionNo,
+                after == null ? PageCursor.FIRST_STRING : after.string(0),
+                after == null ? PageCursor.FIRST_ID : after.integer(1),
+                PageCursor.pageRequest(limit));
+        if (after == null && dto_list.isEmpty()) {
+            // the section is only looked up to tell the two errors apart
+            if (!sectionRepository.existsById(sectionNo)) {
+                throw  new ResponseStatusException( HttpStatus.NOT_FOUND, "Section not found "+sectionNo);
             }
-            return dto_list;
+            throw  new ResponseStatusException( HttpStatus.NOT_FOUND, "Nobody has enrolled in section "+sectionNo);
+        }
+        String next = null;
+        if (dto_list.hasNext()) {
+            EnrollmentDTO last = dto_list.getContent().get(dto_list.getNumberOfElements() - 1);
+            next = PageCursor.encode(last.name(), last.enrollmentId());
         }
+        return PageCursor.page(dto_list.getContent(), next);
+    }
+
+    // student or advisor gets the number of scored grades and the running average for an enrollment
+    // read from the precomputed grade summary, one primary key lookup
+    @GetMapping("/enrollments/{enrollmentId}/summary")
+    @StatementBudget(2)
+    public GradeSummaryDTO getGradeSummary(@PathVariable("enrollmentId") int enrollmentId) {
+        return gradeSummaryRepository.findSummaryByEnrollmentId(enrollmentId).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Enrollment not found "+enrollmentId));
     }
 
     // instructor uploads enrollments with the final grades for the section
     // user must be instructor for the section
+    // all grades are applied or none of them
     @PutMapping("/enrollments")
-    public void updateEnrollmentGrade(@RequestBody List<EnrollmentDTO> dlist) {
+    public List<EnrollmentGradeResultDTO> updateEnrollmentGrade(@RequestBody List<EnrollmentDTO> dlist) {
         if (dlist.size() < 1) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Please provide the enrollments");
-        } else {
-            for (EnrollmentDTO enrollment : dlist) {
-                Enrollment e = enrollmentRepository.findById(enrollment.enrollmentId()).orElse(null);
-                e.setGrade(enrollment.grade());
-                enrollmentRepository.save(e);
-            }
         }
+        return gradeBatchWriter.updateFinalGrades(dlist);
     }
 }
@@ -0,0 +1,78 @@
+package com.cst438.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.cst438.domain.SectionRepository;
+import com.cst438.domain.TermRepository;
+import com.cst438.service.GradeExporter;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+public class GradeExportController {
+
+    static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    TermRepository termRepository;
+
+    @Autowired
+    GradeExporter gradeExporter;
+
+    // registrar downloads the grade matrix of a section, one row per student and assignment
+    // format is csv or ndjson.  rows are written to the response as they are read
+    @GetMapping("/sections/{secNo}/grades/export")
+    public ResponseEntity<StreamingResponseBody> exportSection(
+            @PathVariable("secNo") int secNo,
+            @RequestParam(name = "format", defaultValue = GradeExporter.CSV) String format) {
+        MediaType type = mediaType(format);
+        if (!sectionRepository.existsById(secNo)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Section not found "+secNo);
+        }
+        return download(type, "section-" + secNo + "-grades." + format,
+                out -> gradeExporter.exportSection(secNo, format, out));
+    }
+
+    // registrar downloads the grade matrix of every section in a term
+    @GetMapping("/grades/export")
+    public ResponseEntity<StreamingResponseBody> exportTerm(
+            @RequestParam("year") int year,
+            @RequestParam("semester") String semester,
+            @RequestParam(name = "format", defaultValue = GradeExporter.CSV) String format) {
+        MediaType type = mediaType(format);
+        if (termRepository.findByYearAndSemester(year, semester) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Term not found "+year+" "+semester);
+        }
+        return download(type, year + "-" + semester + "-grades." + format,
+                out -> gradeExporter.exportTerm(year, semester, format, out));
+    }
+
+    private static MediaType mediaType(String format) {
+        return switch (format) {
+            case GradeExporter.CSV -> CSV;
+            case GradeExporter.NDJSON -> NDJSON;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+        };
+    }
+
+    private static ResponseEntity<StreamingResponseBody> download(MediaType type, String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,50 @@
+package com.cst438.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.cst438.domain.SectionRepository;
+import com.cst438.dto.GradeImportResultDTO;
+import com.cst438.service.GradeImporter;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:3000")
+public class GradeImportController {
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    GradeImporter gradeImporter;
+
+    // instructor uploads a CSV file with email, assignment and score columns
+    // user must be instructor for the section
+    // all rows are applied or none of them.  400 with the rows in error otherwise
+    @PostMapping("/sections/{secNo}/grades/import")
+    public ResponseEntity<GradeImportResultDTO> importGrades(
+            @PathVariable("secNo") int secNo,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        if (!sectionRepository.existsById(secNo)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Section not found "+secNo);
+        }
+        GradeImportResultDTO result;
+        try (InputStream in = file.getInputStream()) {
+            result = gradeImporter.importSection(secNo, in);
+        }
+        if (result.errorCount() > 0) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
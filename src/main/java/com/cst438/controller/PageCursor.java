@@ -0,0 +1,117 @@
+package com.cst438.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Keyset pagination for the list endpoints.  A page is the rows that sort after
+ * the last row of the previous page, so every page costs the same however deep
+ * the client scrolls.  The sort keys of that last row travel to the client as an
+ * opaque cursor in the X-Next-Cursor header, which is absent on the last page.
+ * Paging is opt in: a request without a limit gets every row (after the cursor, if any)
+ * in one response, as the endpoints did before they were paged.
+ */
+public final class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int MAX_LIMIT = 1000;
+
+    // sort key values that come before every real row, used for the first page
+    static final String FIRST_STRING = "";
+    static final Date FIRST_DATE = Date.valueOf("1900-01-01");
+    static final int FIRST_ID = 0;
+
+    // due date of assignments that have none, so they sort and page after every real one
+    static final Date NO_DUE_DATE = Date.valueOf("9999-12-31");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<Object> keys;
+
+    private PageCursor(List<Object> keys) {
+        this.keys = keys;
+    }
+
+    // null when the request has no cursor, that is for the first page
+    static PageCursor parse(String cursor, int keyCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            List<Object> keys = MAPPER.readValue(json, new TypeReference<List<Object>>() {});
+            if (keys.size() != keyCount) {
+                throw new IllegalArgumentException("expected " + keyCount + " keys");
+            }
+            return new PageCursor(keys);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static String encode(Object... keys) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    MAPPER.writeValueAsString(Arrays.asList(keys)).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // unpaged when the request has no limit
+    static Pageable pageRequest(Integer limit) {
+        if (limit == null) {
+            return Pageable.unpaged();
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return PageRequest.of(0, limit);
+    }
+
+    // the page with the cursor of the next one when there are more rows
+    static <T> ResponseEntity<List<T>> page(List<T> rows, String nextCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(rows);
+    }
+
+    String string(int i) {
+        return key(i, String.class);
+    }
+
+    int integer(int i) {
+        return key(i, Integer.class);
+    }
+
+    Date date(int i) {
+        try {
+            return Date.valueOf(string(i));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private <T> T key(int i, Class<T> type) {
+        Object key = keys.get(i);
+        if (!type.isInstance(key)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        return type.cast(key);
+    }
+}
@@ -0,0 +1,52 @@
+package com.cst438.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cst438.dto.CacheStatsDTO;
+import com.cst438.dto.OutboxStatsDTO;
+import com.cst438.service.RegistrarOutbox;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@RestController
+public class StatsController {
+
+    @Autowired
+    RegistrarOutbox registrarOutbox;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    // lag and throughput of the relay that publishes the registrar outbox
+    @GetMapping("/stats/outbox")
+    public OutboxStatsDTO getOutboxStats() {
+        return registrarOutbox.stats();
+    }
+
+    // hit rate of each second level cache region, including the query results region
+    @GetMapping("/stats/cache")
+    public List<CacheStatsDTO> getCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheStatsDTO> dlist = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics s = statistics.getCacheRegionStatistics(region);
+            if (s != null) {
+                dlist.add(cacheStats(region, s.getHitCount(), s.getMissCount(), s.getPutCount()));
+            }
+        }
+        return dlist;
+    }
+
+    private static CacheStatsDTO cacheStats(String region, long hits, long misses, long puts) {
+        long lookups = hits + misses;
+        return new CacheStatsDTO(region, hits, misses, puts, lookups == 0 ? 0 : (double) hits / lookups);
+    }
+}
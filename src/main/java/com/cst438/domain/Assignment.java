@@ -7,7 +7,8 @@ import java.sql.Date;
 @Entity
 public class Assignment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="assignment_seq")
+    @SequenceGenerator(name="assignment_seq", sequenceName="assignment_seq", allocationSize=50)
     @Column(name = "assignment_id")
     private int assignmentId;
 
@@ -1,17 +1,48 @@
 package com.cst438.domain;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.sql.Date;
 import java.util.List;
 
+import com.cst438.dto.AssignmentStudentDTO;
+
 public interface AssignmentRepository extends CrudRepository<Assignment, Integer> {
 
     @Query("select a from Assignment a where a.section.sectionNo=:sectionNo order by a.dueDate")
     List<Assignment> findBySectionNoOrderByDueDate(int sectionNo);
 
-    @Query("select a from Assignment a join a.section.enrollments e " +
-            "where a.section.term.year=:year and a.section.term.semester=:semester and" +
-            " e.student.id=:studentId order by a.dueDate")
-    List<Assignment> findByStudentIdAndYearAndSemesterOrderByDueDate(int studentId, int year, String semester);
+    // next page of the section's assignments after the given due date and id.  Assignments
+    // without a due date sort last, compared as noDueDate which is after every real due date
+    @Query("select a from Assignment a where a.section.sectionNo=:sectionNo " +
+            "and (coalesce(a.dueDate, :noDueDate) > :dueDate " +
+            "or (coalesce(a.dueDate, :noDueDate) = :dueDate and a.assignmentId > :assignmentId)) " +
+            "order by a.dueDate nulls last, a.assignmentId")
+    Slice<Assignment> findBySectionNoAfter(int sectionNo, Date dueDate, int assignmentId, Date noDueDate,
+                                           Pageable pageable);
+
+    // student's assignments with course, section and score in one select.
+    // the grade is left joined so assignments that have no grade row yet have a null score
+    @Query("select new com.cst438.dto.AssignmentStudentDTO(a.assignmentId, a.title, a.dueDate, c.courseId, s.secId, g.score) " +
+            "from Assignment a join a.section s join s.course c join s.term t " +
+            "join Enrollment e on e.section=s " +
+            "left join Grade g on g.assignment=a and g.enrollment=e " +
+            "where t.year=:year and t.semester=:semester and e.student.id=:studentId " +
+            "and (coalesce(a.dueDate, :noDueDate) > :dueDate " +
+            "or (coalesce(a.dueDate, :noDueDate) = :dueDate and a.assignmentId > :assignmentId)) " +
+            "order by a.dueDate nulls last, a.assignmentId")
+    Slice<AssignmentStudentDTO> findByStudentIdAndYearAndSemesterAfter(int studentId, int year, String semester,
+                                                                       Date dueDate, int assignmentId, Date noDueDate,
+                                                                       Pageable pageable);
+
+    // grades of every assignment in the section counted by score.  Scores are 0 to 100, so
+    // there are at most 102 rows per assignment however many students are enrolled
+    @Query("select new com.cst438.domain.ScoreCount(a.assignmentId, a.title, a.dueDate, g.score, count(g.gradeId)) " +
+            "from Assignment a left join Grade g on g.assignment=a " +
+            "where a.section.sectionNo=:sectionNo " +
+            "group by a.assignmentId, a.title, a.dueDate, g.score order by a.dueDate, a.assignmentId")
+    List<ScoreCount> findScoreCountsBySectionNo(int sectionNo);
 }
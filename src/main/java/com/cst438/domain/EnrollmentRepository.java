@@ -1,10 +1,15 @@
 package com.cst438.domain;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import com.cst438.dto.EnrollmentDTO;
+
 public interface EnrollmentRepository extends CrudRepository<Enrollment, Integer> {
 
     // TODO uncomment the following lines as needed
@@ -12,6 +17,17 @@ public interface EnrollmentRepository extends CrudRepository<Enrollment, Integer
     @Query("select e from Enrollment e where e.section.sectionNo=:sectionNo order by e.student.name")
     List<Enrollment> findEnrollmentsBySectionNoOrderByStudentName(int sectionNo);
 
+    // section roster built directly from one joined select, no entities are loaded.
+    // a page holds the students that sort after the given name and enrollment id
+    @Query("select new com.cst438.dto.EnrollmentDTO(e.enrollmentId, e.grade, s.id, s.name, s.email, " +
+            "c.courseId, c.title, sec.secId, sec.sectionNo, sec.building, sec.room, sec.times, " +
+            "c.credits, t.year, t.semester) " +
+            "from Enrollment e join e.student s join e.section sec join sec.course c join sec.term t " +
+            "where sec.sectionNo=:sectionNo " +
+            "and (s.name > :name or (s.name = :name and e.enrollmentId > :enrollmentId)) " +
+            "order by s.name, e.enrollmentId")
+    Slice<EnrollmentDTO> findEnrollmentDTOsBySectionNoAfter(int sectionNo, String name, int enrollmentId, Pageable pageable);
+
     @Query("select e from Enrollment e where e.student.id=:studentId order by e.section.term.termId")
     List<Enrollment> findEnrollmentsByStudentIdOrderByTermId(int studentId);
 
@@ -26,6 +42,14 @@ public interface EnrollmentRepository extends CrudRepository<Enrollment, Integer
 //    @Query("select e from Enrollment e where e.section.term.year=:year and e.section.term.semester=:semester and e.student.id=:studentId order by e.section.course.courseId")
 //    List<Enrollment> findByYearAndSemesterOrderByCourseId(int year, String semester, int studentId);
 
+    // email of every student in the section with their enrollment id
+    @Query("select new com.cst438.domain.StudentEnrollment(e.enrollmentId, s.email) " +
+            "from Enrollment e join e.student s where e.section.sectionNo=:sectionNo")
+    List<StudentEnrollment> findStudentEnrollmentsBySectionNo(int sectionNo);
+
+    @Query("select e.enrollmentId from Enrollment e where e.enrollmentId in :enrollmentIds")
+    List<Integer> findEnrollmentIdsIn(Collection<Integer> enrollmentIds);
+
     @Query("select e from Enrollment e where e.section.sectionNo=:sectionNo and e.student.id=:studentId")
     Enrollment findEnrollmentBySectionNoAndStudentId(int sectionNo, int studentId);
 }
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Entity
 public class Grade {
     @Id
-    @GeneratedValue(strategy=GenerationType.IDENTITY)
+    @GeneratedValue(strategy=GenerationType.SEQUENCE, generator="grade_seq")
+    @SequenceGenerator(name="grade_seq", sequenceName="grade_seq", allocationSize=50)
     @Column(name="grade_id")
     private int gradeId;
 
@@ -1,12 +1,53 @@
 package com.cst438.domain;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
-public interface GradeRepository extends CrudRepository<Grade, Integer> {
+import com.cst438.dto.GradeExportDTO;
 
-    // TODO uncomment the following lines as needed
+import jakarta.persistence.QueryHint;
+
+public interface GradeRepository extends CrudRepository<Grade, Integer> {
 
     @Query("select g from Grade g where g.assignment.assignmentId=:assignmentId and g.enrollment.enrollmentId=:enrollmentId")
     Grade findByEnrollmentIdAndAssignmentId(int enrollmentId, int assignmentId);
+
+    // roster for an assignment with the enrollment and student loaded in the same statement.
+    // a page holds the students that sort after the given name and grade id
+    @Query("select g from Grade g join fetch g.enrollment e join fetch e.student s " +
+            "where g.assignment.assignmentId=:assignmentId " +
+            "and (s.name > :name or (s.name = :name and g.gradeId > :gradeId)) " +
+            "order by s.name, g.gradeId")
+    Slice<Grade> findByAssignmentIdAfter(int assignmentId, String name, int gradeId, Pageable pageable);
+
+    // enrollments in the section that have no grade yet for the assignment
+    @Query("select e.enrollmentId from Enrollment e where e.section.sectionNo=:sectionNo and not exists " +
+            "(select g.gradeId from Grade g where g.enrollment=e and g.assignment.assignmentId=:assignmentId)")
+    List<Integer> findEnrollmentIdsWithoutGrade(int assignmentId, int sectionNo);
+
+    // grade matrix of a section or a whole term, every student against every assignment of their section.
+    // rows are projections read forward only in fetch size chunks, so nothing accumulates in the
+    // persistence context.  The stream must be read and closed inside a transaction
+    String EXPORT_SELECT = "select new com.cst438.dto.GradeExportDTO(t.year, t.semester, s.sectionNo, c.courseId, s.secId, " +
+            "e.enrollmentId, u.id, u.name, u.email, a.assignmentId, a.title, a.dueDate, g.score) " +
+            "from Enrollment e join e.section s join s.course c join s.term t join e.student u " +
+            "join Assignment a on a.section=s " +
+            "left join Grade g on g.assignment=a and g.enrollment=e ";
+    String EXPORT_ORDER = "order by s.sectionNo, u.name, e.enrollmentId, a.dueDate, a.assignmentId";
+
+    @Query(EXPORT_SELECT + "where s.sectionNo=:sectionNo " + EXPORT_ORDER)
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<GradeExportDTO> streamExportBySectionNo(int sectionNo);
+
+    @Query(EXPORT_SELECT + "where t.year=:year and t.semester=:semester " + EXPORT_ORDER)
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    Stream<GradeExportDTO> streamExportByYearAndSemester(int year, String semester);
 }
@@ -0,0 +1,10 @@
+package com.cst438.domain;
+
+// the current score of a grade, the enrollment it counts towards and its assignment
+public record GradeScore(
+        int gradeId,
+        int enrollmentId,
+        int assignmentId,
+        Integer score
+) {
+}
@@ -0,0 +1,34 @@
+package com.cst438.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// running count and sum of the scored grades of one enrollment.
+// rows are maintained by GradeBatchWriter whenever a grade changes
+@Entity
+@Table(name="grade_summary")
+public class GradeSummary {
+    @Id
+    @Column(name="enrollment_id")
+    private int enrollmentId;
+
+    @Column(name="graded_count")
+    private int gradedCount;
+
+    @Column(name="score_sum")
+    private int scoreSum;
+
+    public int getEnrollmentId() {
+        return enrollmentId;
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
+    public int getScoreSum() {
+        return scoreSum;
+    }
+}
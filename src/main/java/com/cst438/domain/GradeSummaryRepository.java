@@ -0,0 +1,17 @@
+package com.cst438.domain;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import com.cst438.dto.GradeSummaryDTO;
+
+public interface GradeSummaryRepository extends CrudRepository<GradeSummary, Integer> {
+
+    // primary key lookups only.  An enrollment without a summary row has no scored grades yet
+    @Query("select new com.cst438.dto.GradeSummaryDTO(e.enrollmentId, coalesce(s.gradedCount, 0), coalesce(s.scoreSum, 0)) " +
+            "from Enrollment e left join GradeSummary s on s.enrollmentId=e.enrollmentId " +
+            "where e.enrollmentId=:enrollmentId")
+    Optional<GradeSummaryDTO> findSummaryByEnrollmentId(int enrollmentId);
+}
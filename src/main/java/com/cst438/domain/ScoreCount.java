@@ -0,0 +1,14 @@
+package com.cst438.domain;
+
+import java.sql.Date;
+
+// number of grades of an assignment with the same score.  score is null for the
+// ungraded row, and count is 0 when the assignment has no grades at all
+public record ScoreCount(
+        int assignmentId,
+        String title,
+        Date dueDate,
+        Integer score,
+        long count
+) {
+}
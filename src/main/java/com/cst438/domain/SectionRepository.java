@@ -1,9 +1,13 @@
 package com.cst438.domain;
 
 import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import com.cst438.dto.SectionDTO;
+
 public interface SectionRepository extends CrudRepository<Section, Integer> {
 
     @Query("select s from Section s where s.course.courseId like :courseId and s.term.year=:year and s.term.semester=:semester order by s.course.courseId, s.secId asc")
@@ -14,8 +18,25 @@ public interface SectionRepository extends CrudRepository<Section, Integer> {
             "order by s.course.courseId, s.secId")
     List<Section> findByInstructorEmailAndYearAndSemester(String email, int year, String semester);
 
-    @Query("SELECT s FROM Section s ORDER BY s.course.courseId, s.secId")
-    List<Section> findByOpenOrderByCourseIdSectionId();
+    // instructor's sections with course and term in one select.  Every row has the same
+    // instructor, so the name is left empty here and filled in from InstructorResolver.
+    // a page holds the sections that sort after the given course, section id and section number
+    @Query("select new com.cst438.dto.SectionDTO(s.sectionNo, t.year, t.semester, c.courseId, c.title, s.secId, " +
+            "s.building, s.room, s.times, '', s.instructorEmail) " +
+            "from Section s join s.course c join s.term t " +
+            "where s.instructorEmail=:email and t.year=:year and t.semester=:semester " +
+            "and (c.courseId > :courseId or (c.courseId = :courseId and " +
+            "(s.secId > :secId or (s.secId = :secId and s.sectionNo > :sectionNo)))) " +
+            "order by c.courseId, s.secId, s.sectionNo")
+    Slice<SectionDTO> findSectionDTOsByInstructorEmailAndYearAndSemesterAfter(String email, int year, String semester,
+                                                                               String courseId, int secId, int sectionNo, Pageable pageable);
+
+    // every section ever created, a page at a time.  A page holds the sections that sort
+    // after the given course, section id and section number
+    @Query("select s from Section s where s.course.courseId > :courseId or (s.course.courseId = :courseId and " +
+            "(s.secId > :secId or (s.secId = :secId and s.sectionNo > :sectionNo))) " +
+            "order by s.course.courseId, s.secId, s.sectionNo")
+    Slice<Section> findByOpenOrderByCourseIdSectionId(String courseId, int secId, int sectionNo, Pageable pageable);
 
     @Query("select s from Section s where s.secId=:secId")
     List<Section> findBySectionId(int secId);
@@ -0,0 +1,8 @@
+package com.cst438.domain;
+
+// a student's email and their enrollment in a section
+public record StudentEnrollment(
+        int enrollmentId,
+        String email
+) {
+}
@@ -1,11 +1,16 @@
 package com.cst438.domain;
 
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.List;
 
 public interface TermRepository extends CrudRepository<Term, Integer> {
 
+    // terms rarely change, the result is kept in the query cache
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Term findByYearAndSemester( int year, String semester);
 
     List<Term> findAllByOrderByTermIdDesc();
@@ -0,0 +1,21 @@
+package com.cst438.dto;
+
+import java.sql.Date;
+import java.util.List;
+/*
+ * Data Transfer Object for the score statistics of one assignment
+ * min, max, mean and median are null until a grade has been scored
+ */
+public record AssignmentStatsDTO(
+        int assignmentId,
+        String title,
+        Date dueDate,
+        long gradedCount,
+        long ungradedCount,
+        Integer min,
+        Integer max,
+        Double mean,
+        Integer median,
+        List<Long> histogram    // 10 buckets 0-9, 10-19, ... 90-100
+) {
+}
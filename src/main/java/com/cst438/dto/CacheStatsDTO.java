@@ -0,0 +1,12 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for the hit rate of one second level cache region
+ */
+public record CacheStatsDTO(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        double hitRate      // hits / (hits + misses), 0 before the first lookup
+) {
+}
@@ -0,0 +1,10 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for the result of a final grade upload for one enrollment
+ */
+public record EnrollmentGradeResultDTO(
+        int enrollmentId,
+        String grade,
+        boolean updated
+) {
+}
@@ -0,0 +1,23 @@
+package com.cst438.dto;
+
+import java.sql.Date;
+/*
+ * Data Transfer Object for one cell of a section's grade matrix: a student's score
+ * for an assignment.  score is null when the assignment has not been graded
+ */
+public record GradeExportDTO(
+        int year,
+        String semester,
+        int sectionNo,
+        String courseId,
+        int sectionId,
+        int enrollmentId,
+        int studentId,
+        String studentName,
+        String studentEmail,
+        int assignmentId,
+        String assignmentTitle,
+        Date dueDate,
+        Integer score
+) {
+}
@@ -0,0 +1,9 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for a rejected row of a grade import
+ */
+public record GradeImportErrorDTO(
+        int line,       // line number in the file, the header is line 1
+        String message
+) {
+}
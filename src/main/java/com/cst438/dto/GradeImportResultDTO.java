@@ -0,0 +1,14 @@
+package com.cst438.dto;
+
+import java.util.List;
+/*
+ * Data Transfer Object for the outcome of a grade import.
+ * Nothing is written when errorCount is not 0, errors lists the first rows in error
+ */
+public record GradeImportResultDTO(
+        int rows,
+        int written,
+        int errorCount,
+        List<GradeImportErrorDTO> errors
+) {
+}
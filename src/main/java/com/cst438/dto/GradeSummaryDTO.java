@@ -0,0 +1,14 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for the running average of an enrollment's scored grades
+ */
+public record GradeSummaryDTO(
+        int enrollmentId,
+        int gradedCount,    // grades with a score, ungraded (null) scores are not counted
+        int scoreSum,
+        Double average      // null until the first grade is scored
+) {
+    public GradeSummaryDTO(int enrollmentId, int gradedCount, int scoreSum) {
+        this(enrollmentId, gradedCount, scoreSum, gradedCount == 0 ? null : (double) scoreSum / gradedCount);
+    }
+}
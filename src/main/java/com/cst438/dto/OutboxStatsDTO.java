@@ -0,0 +1,11 @@
+package com.cst438.dto;
+/*
+ * Data Transfer Object for the state of the registrar outbox relay
+ */
+public record OutboxStatsDTO(
+        long pending,          // messages written but not yet confirmed by the broker
+        long lagMillis,        // age of the oldest pending message
+        long published,        // messages published since startup
+        double publishedPerSecond  // rate of the last relay run
+) {
+}
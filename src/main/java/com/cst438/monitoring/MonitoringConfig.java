@@ -0,0 +1,57 @@
+package com.cst438.monitoring;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Statement counting and @StatementBudget checks for every request.  Endpoint latency (http.server.requests),
+ * repository method timers (spring.data.repository.invocations), hibernate statistics
+ * and connection pool metrics come from Spring Boot actuator auto-configuration.
+ */
+@Configuration
+public class MonitoringConfig implements WebMvcConfigurer {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // fail requests over their statement budget instead of logging them, set for tests
+    @Value("${gradebook.statement-budget.fail:false}")
+    boolean failOverBudget;
+
+    @Value("${gradebook.statement-budget.log-every:100}")
+    int logEvery;
+
+    // static so the data source can be wrapped before other beans are created
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // a bean so StatementBudgetAdvice can check budgets with the same settings
+    @Bean
+    public RequestStatementsInterceptor requestStatementsInterceptor() {
+        return new RequestStatementsInterceptor(meterRegistry, failOverBudget, logEvery);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestStatementsInterceptor());
+    }
+}
@@ -0,0 +1,136 @@
+package com.cst438.monitoring;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Records the number of JDBC statements each request makes as gradebook.request.statements,
+ * tagged with the same method and uri template as http.server.requests.  An endpoint whose
+ * statement count grows with the size of its result is doing N+1 queries.
+ *
+ * Endpoints annotated with @StatementBudget are checked against their budget.  With fail set
+ * a request over budget fails before its response is written: StatementBudgetAdvice checks
+ * handlers that return a body before the body is written, postHandle checks the ones that
+ * write none.  Otherwise the first and then every logEvery-th request over budget for each
+ * endpoint is logged with the query shapes it ran.
+ * The count is also left in the STATEMENTS_ATTRIBUTE request attribute so tests can assert it.
+ */
+public class RequestStatementsInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStatementsInterceptor.class);
+
+    static final String METRIC = "gradebook.request.statements";
+    static final String OVER_BUDGET_METRIC = "gradebook.request.statements.over.budget";
+    public static final String STATEMENTS_ATTRIBUTE = RequestStatementsInterceptor.class.getName() + ".statements";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean fail;
+    private final int logEvery;
+    private final Map<String, AtomicLong> overBudget = new ConcurrentHashMap<>();
+
+    public RequestStatementsInterceptor(MeterRegistry meterRegistry, boolean fail, int logEvery) {
+        this.meterRegistry = meterRegistry;
+        this.fail = fail;
+        this.logEvery = Math.max(1, logEvery);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.start();
+        return true;
+    }
+
+    // a handler that returned a body has already written it and was checked by StatementBudgetAdvice.
+    // one that wrote nothing, like a void PUT, is checked here while the response can still be an error
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        if (!response.isCommitted()) {
+            checkBudget(request, budget(handler));
+        }
+    }
+
+    // throws when fail is set and the request is over its budget
+    void checkBudget(HttpServletRequest request, int budget) {
+        int statements = StatementCounter.current();
+        if (fail && budget >= 0 && statements > budget) {
+            throw new StatementBudgetExceededException(message(request, statements, budget, StatementCounter.shapes()));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Map<String, Integer> shapes = StatementCounter.shapes();
+        int statements = StatementCounter.stop();
+        if (statements < 0) {
+            return;
+        }
+        request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+        String uri = uri(request);
+        DistributionSummary.builder(METRIC)
+                .description("JDBC statements prepared per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+
+        int budget = budget(handler);
+        if (fail || budget < 0 || statements <= budget) {
+            return;
+        }
+        meterRegistry.counter(OVER_BUDGET_METRIC, "method", request.getMethod(), "uri", uri).increment();
+        long n = overBudget.computeIfAbsent(request.getMethod() + " " + uri, k -> new AtomicLong()).getAndIncrement();
+        if (n % logEvery == 0) {
+            log.warn("{} ({} time(s) over budget)", message(request, statements, budget, shapes), n + 1);
+        }
+    }
+
+    // the rest of an async request runs on another thread and is not counted
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.stop();
+    }
+
+    // -1 when the endpoint has no budget
+    static int budget(Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return -1;
+        }
+        return budget(method.getMethod(), method.getBeanType());
+    }
+
+    static int budget(Method method, Class<?> beanType) {
+        StatementBudget budget = method == null ? null : AnnotatedElementUtils.findMergedAnnotation(method, StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(beanType, StatementBudget.class);
+        }
+        return budget == null ? -1 : budget.value();
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "UNKNOWN" : pattern.toString();
+    }
+
+    private static String message(HttpServletRequest request, int statements, int budget, Map<String, Integer> shapes) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.getMethod()).append(' ').append(uri(request))
+                .append(" prepared ").append(statements).append(" JDBC statements, budget is ").append(budget);
+        shapes.forEach((shape, count) -> sb.append("\n  ").append(count).append(" x ").append(shape));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.cst438.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * Most JDBC statements a request to the endpoint may prepare.  The budget does not depend
+ * on the page size, so a loop that queries once per row goes over it.
+ * Exceeding it fails the request when gradebook.statement-budget.fail=true (tests) and
+ * logs a sampled warning otherwise.  See RequestStatementsInterceptor.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface StatementBudget {
+
+    int value();
+}
@@ -0,0 +1,39 @@
+package com.cst438.monitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+ * Checks the @StatementBudget of handlers that return a body, @ResponseBody or ResponseEntity,
+ * just before the body is written.  Once it is written the response is committed, and
+ * RequestStatementsInterceptor.postHandle is too late to turn it into an error.
+ */
+@ControllerAdvice
+public class StatementBudgetAdvice implements ResponseBodyAdvice<Object> {
+
+    @Autowired
+    RequestStatementsInterceptor requestStatementsInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return RequestStatementsInterceptor.budget(returnType.getMethod(), returnType.getContainingClass()) >= 0;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            requestStatementsInterceptor.checkBudget(servletRequest.getServletRequest(),
+                    RequestStatementsInterceptor.budget(returnType.getMethod(), returnType.getContainingClass()));
+        }
+        return body;
+    }
+}
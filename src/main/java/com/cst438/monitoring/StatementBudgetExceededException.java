@@ -0,0 +1,8 @@
+package com.cst438.monitoring;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
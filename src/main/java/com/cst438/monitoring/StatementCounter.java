@@ -0,0 +1,82 @@
+package com.cst438.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Counts the JDBC statements prepared on the current thread between start and stop,
+ * and how often each distinct query shape was prepared.
+ * Statements on threads that have not called start are not counted.
+ */
+public final class StatementCounter {
+
+    // distinct shapes kept per request, later ones are only counted
+    static final int MAX_SHAPES = 20;
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    private static final class Counts {
+        int statements;
+        final Map<String, Integer> shapes = new LinkedHashMap<>();
+    }
+
+    public static void start() {
+        COUNTS.set(new Counts());
+    }
+
+    // statements since start, -1 when counting was not started
+    public static int stop() {
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts == null ? -1 : counts.statements;
+    }
+
+    public static int current() {
+        Counts counts = COUNTS.get();
+        return counts == null ? -1 : counts.statements;
+    }
+
+    // query shapes in the order first seen with the number of times each was prepared
+    public static Map<String, Integer> shapes() {
+        Counts counts = COUNTS.get();
+        return counts == null ? Collections.emptyMap() : Collections.unmodifiableMap(counts.shapes);
+    }
+
+    // runs work without counting its statements, for one time work such as a backfill
+    // whose size depends on the data rather than on the page being read
+    public static void uncounted(Runnable work) {
+        Counts counts = COUNTS.get();
+        COUNTS.remove();
+        try {
+            work.run();
+        } finally {
+            if (counts != null) {
+                COUNTS.set(counts);
+            }
+        }
+    }
+
+    static void increment(String sql) {
+        Counts counts = COUNTS.get();
+        if (counts == null) {
+            return;
+        }
+        counts.statements++;
+        String shape = shape(sql);
+        if (counts.shapes.containsKey(shape) || counts.shapes.size() < MAX_SHAPES) {
+            counts.shapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    // whitespace collapsed and in lists of any length written as (?...)
+    static String shape(String sql) {
+        if (sql == null) {
+            return "<statement>";
+        }
+        return sql.trim().replaceAll("\\s+", " ").replaceAll("\\(\\?(\\s*,\\s*\\?)*\\)", "(?...)");
+    }
+}
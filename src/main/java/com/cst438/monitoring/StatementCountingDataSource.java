@@ -0,0 +1,48 @@
+package com.cst438.monitoring;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/*
+ * Hands out connections that report every statement they prepare to StatementCounter.
+ * JPA, Spring Data and JdbcTemplate all get their connections here, so one request's
+ * count covers every query it makes.  A JDBC batch counts once.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement", "prepareCall" -> StatementCounter.increment((String) args[0]);
+                case "createStatement" -> StatementCounter.increment(null);
+                default -> { }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+}
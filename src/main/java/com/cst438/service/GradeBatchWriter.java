@@ -0,0 +1,280 @@
+package com.cst438.service;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import com.cst438.domain.Assignment;
+import com.cst438.domain.Enrollment;
+import com.cst438.domain.EnrollmentRepository;
+import com.cst438.domain.Grade;
+import com.cst438.domain.GradeRepository;
+import com.cst438.domain.GradeScore;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.EnrollmentGradeResultDTO;
+import com.cst438.dto.GradeDTO;
+
+/*
+ * Writes grades in bulk with JDBC batching.
+ * Uploads are validated before anything is written and applied in one transaction.
+ * Every change to a score is also added to the grade_summary row of its enrollment,
+ * so the running average never has to be recomputed from the grade table.
+ */
+@Service
+public class GradeBatchWriter {
+
+    @Autowired
+    GradeRepository gradeRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    RegistrarOutbox registrarOutbox;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Value("${gradebook.jdbc.batch-size:100}")
+    int batchSize;
+
+    // create a grade of 0 for every student in the section that does not have one yet.
+    // ids come from the pooled grade_seq so hibernate sends the inserts as JDBC batches
+    @Transactional
+    public void createMissingGrades(Assignment assignment) {
+        int sectionNo = assignment.getSection().getSectionNo();
+        List<Integer> enrollmentIds = gradeRepository.findEnrollmentIdsWithoutGrade(assignment.getAssignmentId(), sectionNo);
+        if (enrollmentIds.isEmpty()) {
+            return;
+        }
+        // look again once no other request can be inserting grades for the section
+        lockSection(sectionNo);
+        enrollmentIds = gradeRepository.findEnrollmentIdsWithoutGrade(assignment.getAssignmentId(), sectionNo);
+        List<Grade> grades = new ArrayList<>();
+        Map<Integer, SummaryDelta> deltas = new TreeMap<>();
+        for (Integer enrollmentId : enrollmentIds) {
+            Grade grade = new Grade();
+            grade.setAssignment(assignment);
+            grade.setEnrollment(entityManager.getReference(Enrollment.class, enrollmentId));
+            grade.setScore(0);
+            grades.add(grade);
+            deltas.computeIfAbsent(enrollmentId, id -> new SummaryDelta()).add(0);
+        }
+        gradeRepository.saveAll(grades);
+        // send the inserts now, as part of the backfill, rather than at the caller's next query
+        entityManager.flush();
+        updateSummaries(deltas);
+    }
+
+    @Transactional
+    public void updateScores(List<GradeDTO> dlist) {
+        if (dlist.isEmpty()) {
+            return;
+        }
+        List<Integer> gradeIds = new ArrayList<>();
+        for (GradeDTO dto : dlist) {
+            gradeIds.add(dto.gradeId());
+        }
+        // one select for every id in the upload.  The rows stay locked until commit, so a
+        // concurrent upload of the same grade waits and then works out its change from this score
+        Map<Integer, GradeScore> current = new HashMap<>();
+        for (GradeScore g : lockGradeScores(gradeIds)) {
+            current.put(g.gradeId(), g);
+        }
+        for (GradeDTO dto : dlist) {
+            if (!current.containsKey(dto.gradeId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Grade not found " + dto.gradeId());
+            }
+            if (dto.score() != null && (dto.score() < 0 || dto.score() > 100)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Score must be between 0 and 100 " + dto.gradeId());
+            }
+        }
+
+        jdbcTemplate.batchUpdate("update grade set score=? where grade_id=?", dlist, batchSize, (ps, dto) -> {
+            if (dto.score() == null) {
+                ps.setNull(1, Types.INTEGER);
+            } else {
+                ps.setInt(1, dto.score());
+            }
+            ps.setInt(2, dto.gradeId());
+        });
+
+        // a grade listed twice counts its last score, the same as the updates above
+        Map<Integer, SummaryDelta> deltas = new TreeMap<>();
+        for (GradeDTO dto : dlist) {
+            GradeScore before = current.get(dto.gradeId());
+            SummaryDelta delta = deltas.computeIfAbsent(before.enrollmentId(), id -> new SummaryDelta());
+            delta.remove(before.score());
+            delta.add(dto.score());
+            current.put(dto.gradeId(), new GradeScore(before.gradeId(), before.enrollmentId(), before.assignmentId(), dto.score()));
+        }
+        updateSummaries(deltas);
+    }
+
+    // scores from a spreadsheet, already validated against the section.  Grades that exist are
+    // updated in one JDBC batch and the rest are inserted as batched JPA inserts
+    @Transactional
+    public void upsertScores(int sectionNo, List<ImportedGrade> rows) {
+        // imports and grade creation for the section run one at a time, so a grade that is
+        // missing here is not inserted by anyone else before this commits.  Then one select
+        // for every grade of the section, locked like the grades of a PUT /grades upload
+        lockSection(sectionNo);
+        Map<Long, GradeScore> existing = new HashMap<>();
+        for (GradeScore g : jdbcTemplate.query("select grade_id, enrollment_id, assignment_id, score from grade " +
+                "where assignment_id in (select assignment_id from assignment where section_no=?) " +
+                "order by grade_id for update", GRADE_SCORE, sectionNo)) {
+            existing.put(gradeKey(g.enrollmentId(), g.assignmentId()), g);
+        }
+
+        List<GradeScore> updates = new ArrayList<>();
+        List<Grade> inserts = new ArrayList<>();
+        Map<Integer, SummaryDelta> deltas = new TreeMap<>();
+        for (ImportedGrade row : rows) {
+            SummaryDelta delta = deltas.computeIfAbsent(row.enrollmentId(), id -> new SummaryDelta());
+            GradeScore before = existing.get(gradeKey(row.enrollmentId(), row.assignmentId()));
+            if (before != null) {
+                updates.add(new GradeScore(before.gradeId(), before.enrollmentId(), before.assignmentId(), row.score()));
+                delta.remove(before.score());
+            } else {
+                Grade grade = new Grade();
+                grade.setEnrollment(entityManager.getReference(Enrollment.class, row.enrollmentId()));
+                grade.setAssignment(entityManager.getReference(Assignment.class, row.assignmentId()));
+                grade.setScore(row.score());
+                inserts.add(grade);
+            }
+            delta.add(row.score());
+        }
+
+        jdbcTemplate.batchUpdate("update grade set score=? where grade_id=?", updates, batchSize, (ps, g) -> {
+            if (g.score() == null) {
+                ps.setNull(1, Types.INTEGER);
+            } else {
+                ps.setInt(1, g.score());
+            }
+            ps.setInt(2, g.gradeId());
+        });
+        gradeRepository.saveAll(inserts);
+        updateSummaries(deltas);
+    }
+
+    private void lockSection(int sectionNo) {
+        jdbcTemplate.query("select section_no from section where section_no=? for update",
+                (rs, n) -> rs.getInt(1), sectionNo);
+    }
+
+    // grades locked in id order, so two uploads that share grades cannot deadlock
+    private List<GradeScore> lockGradeScores(List<Integer> gradeIds) {
+        String in = String.join(",", Collections.nCopies(gradeIds.size(), "?"));
+        return jdbcTemplate.query("select grade_id, enrollment_id, assignment_id, score from grade " +
+                "where grade_id in (" + in + ") order by grade_id for update", GRADE_SCORE, gradeIds.toArray());
+    }
+
+    private static final RowMapper<GradeScore> GRADE_SCORE = (rs, n) -> new GradeScore(rs.getInt("grade_id"),
+            rs.getInt("enrollment_id"), rs.getInt("assignment_id"), rs.getObject("score", Integer.class));
+
+    private static long gradeKey(int enrollmentId, int assignmentId) {
+        return ((long) enrollmentId << 32) | assignmentId;
+    }
+
+    @Transactional
+    public List<EnrollmentGradeResultDTO> updateFinalGrades(List<EnrollmentDTO> dlist) {
+        List<Integer> enrollmentIds = new ArrayList<>();
+        for (EnrollmentDTO dto : dlist) {
+            enrollmentIds.add(dto.enrollmentId());
+        }
+        // one select for every id in the upload
+        Set<Integer> existing = new HashSet<>(enrollmentRepository.findEnrollmentIdsIn(enrollmentIds));
+        List<Integer> missing = new ArrayList<>();
+        for (EnrollmentDTO dto : dlist) {
+            if (!existing.contains(dto.enrollmentId())) {
+                missing.add(dto.enrollmentId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Enrollment not found " + missing);
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate("update enrollment set grade=? where enrollment_id=?", dlist, batchSize, (ps, dto) -> {
+            ps.setString(1, dto.grade());
+            ps.setInt(2, dto.enrollmentId());
+        });
+
+        // the registrar is told about the final grades in the same transaction
+        registrarOutbox.append("updateEnrollment", dlist);
+
+        List<EnrollmentGradeResultDTO> results = new ArrayList<>();
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                EnrollmentDTO dto = dlist.get(row++);
+                // drivers may report SUCCESS_NO_INFO instead of a row count
+                results.add(new EnrollmentGradeResultDTO(dto.enrollmentId(), dto.grade(), count != 0));
+            }
+        }
+        return results;
+    }
+
+    // rows are created on first use and then changed by increments, so concurrent uploads
+    // for the same enrollment do not overwrite each other.  Enrollment ids are in ascending
+    // order so two uploads always lock the summary rows in the same order
+    private void updateSummaries(Map<Integer, SummaryDelta> deltas) {
+        List<Map.Entry<Integer, SummaryDelta>> changed = new ArrayList<>();
+        for (Map.Entry<Integer, SummaryDelta> entry : deltas.entrySet()) {
+            if (entry.getValue().gradedCount != 0 || entry.getValue().scoreSum != 0) {
+                changed.add(entry);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("merge into grade_summary (enrollment_id) key (enrollment_id) values (?)",
+                changed, batchSize, (ps, entry) -> ps.setInt(1, entry.getKey()));
+        jdbcTemplate.batchUpdate("update grade_summary set graded_count=graded_count+?, score_sum=score_sum+? where enrollment_id=?",
+                changed, batchSize, (ps, entry) -> {
+            ps.setInt(1, entry.getValue().gradedCount);
+            ps.setInt(2, entry.getValue().scoreSum);
+            ps.setInt(3, entry.getKey());
+        });
+    }
+
+    // change to the count and sum of one enrollment's scored grades
+    private static class SummaryDelta {
+        int gradedCount;
+        int scoreSum;
+
+        void add(Integer score) {
+            if (score != null) {
+                gradedCount++;
+                scoreSum += score;
+            }
+        }
+
+        void remove(Integer score) {
+            if (score != null) {
+                gradedCount--;
+                scoreSum -= score;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.cst438.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cst438.domain.GradeRepository;
+import com.cst438.dto.GradeExportDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+ * Writes grade matrices as CSV or newline delimited JSON while they are read
+ * from the database.  Each row is written and dropped before the next one is
+ * fetched, so memory use does not depend on the size of the section or term.
+ */
+@Service
+public class GradeExporter {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    public static final String CSV_HEADER = "year,semester,sectionNo,courseId,sectionId,enrollmentId,studentId," +
+            "studentName,studentEmail,assignmentId,assignmentTitle,dueDate,score";
+
+    // due dates are written as yyyy-mm-dd, the same as in the CSV
+    private static final ObjectWriter JSON = new ObjectMapper()
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+            .writerFor(GradeExportDTO.class);
+
+    @Autowired
+    GradeRepository gradeRepository;
+
+    @Transactional(readOnly = true)
+    public void exportSection(int sectionNo, String format, OutputStream out) throws IOException {
+        try (Stream<GradeExportDTO> rows = gradeRepository.streamExportBySectionNo(sectionNo)) {
+            write(rows, format, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportTerm(int year, String semester, String format, OutputStream out) throws IOException {
+        try (Stream<GradeExportDTO> rows = gradeRepository.streamExportByYearAndSemester(year, semester)) {
+            write(rows, format, out);
+        }
+    }
+
+    private static void write(Stream<GradeExportDTO> rows, String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            if (CSV.equals(format)) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                rows.forEach(row -> writeLine(writer, csv(row)));
+            } else {
+                rows.forEach(row -> writeLine(writer, json(row)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String json(GradeExportDTO row) {
+        try {
+            return JSON.writeValueAsString(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csv(GradeExportDTO row) {
+        return String.join(",",
+                String.valueOf(row.year()),
+                field(row.semester()),
+                String.valueOf(row.sectionNo()),
+                field(row.courseId()),
+                String.valueOf(row.sectionId()),
+                String.valueOf(row.enrollmentId()),
+                String.valueOf(row.studentId()),
+                field(row.studentName()),
+                field(row.studentEmail()),
+                String.valueOf(row.assignmentId()),
+                field(row.assignmentTitle()),
+                row.dueDate() == null ? "" : row.dueDate().toString(),
+                row.score() == null ? "" : row.score().toString());
+    }
+
+    // quote text that contains a separator, quote or line break (RFC 4180)
+    private static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,217 @@
+package com.cst438.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.cst438.domain.Assignment;
+import com.cst438.domain.AssignmentRepository;
+import com.cst438.domain.EnrollmentRepository;
+import com.cst438.domain.StudentEnrollment;
+import com.cst438.dto.GradeImportErrorDTO;
+import com.cst438.dto.GradeImportResultDTO;
+
+/*
+ * Imports a grade spreadsheet saved as CSV with the columns email, assignment and score.
+ * The file is read one record at a time and each row is checked against the section's
+ * students and assignments, loaded once into maps.  Rows are only written when the
+ * whole file is valid, so an instructor fixes the reported lines and uploads again.
+ */
+@Service
+public class GradeImporter {
+
+    // errors listed in the report, the rest are only counted
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final BigDecimal MAX_SCORE = BigDecimal.valueOf(100);
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    AssignmentRepository assignmentRepository;
+
+    @Autowired
+    GradeBatchWriter gradeBatchWriter;
+
+    public GradeImportResultDTO importSection(int sectionNo, InputStream in) throws IOException {
+        Map<String, Integer> enrollments = new HashMap<>();
+        for (StudentEnrollment e : enrollmentRepository.findStudentEnrollmentsBySectionNo(sectionNo)) {
+            enrollments.put(e.email().toLowerCase(Locale.ROOT), e.enrollmentId());
+        }
+        // a title used by two assignments of the section cannot be imported by title
+        Map<String, Integer> assignments = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        for (Assignment a : assignmentRepository.findBySectionNoOrderByDueDate(sectionNo)) {
+            if (assignments.put(a.getTitle(), a.getAssignmentId()) != null) {
+                ambiguous.add(a.getTitle());
+            }
+        }
+
+        List<ImportedGrade> rows = new ArrayList<>();
+        List<GradeImportErrorDTO> errors = new ArrayList<>();
+        int errorCount = 0;
+        Set<String> seen = new HashSet<>();
+
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+        }
+        header.set(0, stripBom(header.get(0)));
+        Columns columns = Columns.of(header);
+
+        List<String> fields;
+        while ((fields = reader.next()) != null) {
+            // rows are reported by the line they start on, a quoted field may span lines
+            int lineNo = reader.line;
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            String error;
+            String email = columns.email < fields.size() ? fields.get(columns.email).trim() : "";
+            String title = columns.assignment < fields.size() ? fields.get(columns.assignment).trim() : "";
+            String score = columns.score < fields.size() ? fields.get(columns.score).trim() : "";
+            Integer enrollmentId = enrollments.get(email.toLowerCase(Locale.ROOT));
+            Integer assignmentId = assignments.get(title);
+            if (enrollmentId == null) {
+                error = "Student not enrolled in section " + email;
+            } else if (assignmentId == null) {
+                error = "Assignment not found " + title;
+            } else if (ambiguous.contains(title)) {
+                error = "Assignment title is not unique " + title;
+            } else if (!seen.add(enrollmentId + ":" + assignmentId)) {
+                error = "Duplicate row for " + email + " " + title;
+            } else {
+                error = null;
+                try {
+                    // an empty score clears the grade, the same as a null score in PUT /grades.
+                    // spreadsheets may save whole numbers as 95.0
+                    BigDecimal value = score.isEmpty() ? null : new BigDecimal(score);
+                    if (value != null && (value.signum() < 0 || value.compareTo(MAX_SCORE) > 0)) {
+                        error = "Score must be between 0 and 100 " + score;
+                    } else if (value != null && value.stripTrailingZeros().scale() > 0) {
+                        error = "Score is not a whole number " + score;
+                    } else {
+                        rows.add(new ImportedGrade(lineNo, enrollmentId, assignmentId, value == null ? null : value.intValue()));
+                    }
+                } catch (NumberFormatException e) {
+                    error = "Score is not a whole number " + score;
+                }
+            }
+            if (error != null) {
+                errorCount++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new GradeImportErrorDTO(lineNo, error));
+                }
+            }
+        }
+
+        int rowCount = rows.size() + errorCount;
+        if (errorCount > 0) {
+            return new GradeImportResultDTO(rowCount, 0, errorCount, errors);
+        }
+        gradeBatchWriter.upsertScores(sectionNo, rows);
+        return new GradeImportResultDTO(rowCount, rows.size(), 0, errors);
+    }
+
+    // positions of the needed columns, found by name in the header
+    private record Columns(int email, int assignment, int score) {
+
+        static Columns of(List<String> header) {
+            int email = -1, assignment = -1, score = -1;
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                    case "email", "studentemail" -> email = i;
+                    case "assignment", "title", "assignmenttitle" -> assignment = i;
+                    case "score" -> score = i;
+                    default -> { }
+                }
+            }
+            if (email < 0 || assignment < 0 || score < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Header must have email, assignment and score columns");
+            }
+            return new Columns(email, assignment, score);
+        }
+    }
+
+    private static String stripBom(String line) {
+        // spreadsheets often save UTF-8 files with a byte order mark
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    // CSV records as RFC 4180 writes them: "quoted" fields may hold commas, line breaks
+    // and "" for a quote, and records end with \n or \r\n
+    static final class CsvReader {
+
+        private final BufferedReader in;
+        private int nextLine = 1;
+        // line the last record started on
+        int line;
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        // fields of the next record, null at the end of the file
+        List<String> next() throws IOException {
+            int c = in.read();
+            if (c < 0) {
+                return null;
+            }
+            line = nextLine;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (; c >= 0; c = in.read()) {
+                if (quoted) {
+                    if (c == '"') {
+                        in.mark(1);
+                        if (in.read() == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            in.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            nextLine++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    nextLine++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (quoted) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Quoted field starting on line " + line + " is not closed");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.cst438.service;
+
+// a validated row of a grade spreadsheet with the student and assignment resolved to ids
+public record ImportedGrade(
+        int line,
+        int enrollmentId,
+        int assignmentId,
+        Integer score
+) {
+}
@@ -0,0 +1,35 @@
+package com.cst438.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import com.cst438.domain.User;
+import com.cst438.domain.UserRepository;
+
+/*
+ * Resolves instructor emails to users at most once per HTTP request.
+ * Endpoints that need the instructor for many sections can inject this
+ * instead of calling UserRepository.findByEmail inside a loop.
+ */
+@Component
+@RequestScope
+public class InstructorResolver {
+
+    @Autowired
+    UserRepository userRepository;
+
+    // email -> user, an empty Optional remembers emails with no user
+    private final Map<String, Optional<User>> instructors = new HashMap<>();
+
+    public User findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return instructors.computeIfAbsent(email, e -> Optional.ofNullable(userRepository.findByEmail(e))).orElse(null);
+    }
+}
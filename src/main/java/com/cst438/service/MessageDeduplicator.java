@@ -0,0 +1,68 @@
+package com.cst438.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Remembers the ids of registrar messages that have already been committed so
+ * that broker redeliveries and duplicate publishes are not applied twice.
+ * Ids are kept for a limited time and the number of ids is bounded.
+ */
+@Component
+public class MessageDeduplicator {
+
+    @Value("${registrar.dedup.max-entries:100000}")
+    int maxEntries;
+
+    @Value("${registrar.dedup.ttl:PT10M}")
+    Duration ttl;
+
+    Clock clock = Clock.systemUTC();
+
+    // message id -> time it was processed, oldest first
+    private final LinkedHashMap<String, Long> processed = new LinkedHashMap<>();
+
+    public synchronized boolean isDuplicate(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        evictExpired();
+        return processed.containsKey(messageId);
+    }
+
+    public synchronized void markProcessed(Collection<String> messageIds) {
+        long now = clock.millis();
+        for (String id : messageIds) {
+            if (id != null) {
+                // re-insert so the entry moves to the end of the eviction order
+                processed.remove(id);
+                processed.put(id, now);
+            }
+        }
+        Iterator<String> oldest = processed.keySet().iterator();
+        while (processed.size() > maxEntries && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        evictExpired();
+        return processed.size();
+    }
+
+    private void evictExpired() {
+        long cutoff = clock.millis() - ttl.toMillis();
+        Iterator<Map.Entry<String, Long>> oldest = processed.entrySet().iterator();
+        while (oldest.hasNext() && oldest.next().getValue() < cutoff) {
+            oldest.remove();
+        }
+    }
+}
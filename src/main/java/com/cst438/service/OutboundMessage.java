@@ -0,0 +1,11 @@
+package com.cst438.service;
+
+/*
+ * A message waiting to be published to the registrar service.
+ * The id is sent as the AMQP message id and used to correlate the publisher confirm.
+ */
+public record OutboundMessage(
+        String id,
+        String body
+) {
+}
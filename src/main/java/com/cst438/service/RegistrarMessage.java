@@ -0,0 +1,47 @@
+package com.cst438.service;
+
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserDTO;
+
+/*
+ * A message from the registrar service: the action name and the JSON of its DTO,
+ * sent as one string, for example "addEnrollment {...}"
+ */
+public record RegistrarMessage(
+        String action,
+        String body
+) {
+
+    public static RegistrarMessage parse(String message) {
+        int space = message.indexOf(' ');
+        if (space < 0) {
+            return new RegistrarMessage(message.trim(), "");
+        }
+        return new RegistrarMessage(message.substring(0, space), message.substring(space + 1));
+    }
+
+    public <T> T decode(Class<T> valueType) {
+        return RegistrarMessageCodec.decode(body, valueType);
+    }
+
+    public boolean isDelete() {
+        return action.startsWith("delete");
+    }
+
+    // identifies the row the message changes.  Messages with the same key
+    // replace each other when a batch is coalesced.  null when the action is unknown
+    public String key() {
+        if (action.endsWith("Course")) {
+            return "course:" + decode(CourseDTO.class).courseId();
+        } else if (action.endsWith("Section")) {
+            return "section:" + decode(SectionDTO.class).secNo();
+        } else if (action.endsWith("User")) {
+            return "user:" + decode(UserDTO.class).id();
+        } else if (action.endsWith("Enrollment")) {
+            return "enrollment:" + decode(EnrollmentDTO.class).enrollmentId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.cst438.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/*
+ * JSON encoding of messages exchanged with the registrar service.
+ * One ObjectMapper is shared by all threads and a reader and writer is
+ * built once for each DTO type instead of on every message.
+ */
+public final class RegistrarMessageCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            // registrar may add fields before the gradebook knows about them
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<?> type : List.of(EnrollmentDTO.class, SectionDTO.class, UserDTO.class, CourseDTO.class)) {
+            READERS.put(type, MAPPER.readerFor(type));
+            WRITERS.put(type, MAPPER.writerFor(type));
+        }
+    }
+
+    private RegistrarMessageCodec() {
+    }
+
+    public static String encode(Object obj) {
+        try {
+            return WRITERS.computeIfAbsent(obj.getClass(), MAPPER::writerFor).writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static <T> T decode(String str, Class<T> valueType) {
+        try {
+            return READERS.computeIfAbsent(valueType, MAPPER::readerFor).readValue(str);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // registrar messages are the action name followed by the JSON of the DTO,
+    // for example "addEnrollment {...}"
+    public static String message(String action, Object obj) {
+        return action + " " + encode(obj);
+    }
+}
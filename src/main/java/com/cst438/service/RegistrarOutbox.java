@@ -0,0 +1,137 @@
+package com.cst438.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cst438.dto.OutboxStatsDTO;
+
+/*
+ * Transactional outbox for messages to the registrar.
+ * Messages are inserted in the transaction that makes the change, so a change
+ * is never committed without its message.  The relay reads unsent rows in id
+ * order, publishes them with publisher confirms and marks the confirmed rows sent.
+ */
+@Service
+public class RegistrarOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrarOutbox.class);
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    RegistrarPublisher registrarPublisher;
+
+    @Value("${gradebook.jdbc.batch-size:100}")
+    int batchSize;
+
+    @Value("${registrar.outbox.relay-batch-size:500}")
+    int relayBatchSize;
+
+    // sent rows older than this are deleted
+    @Value("${registrar.outbox.retention-hours:24}")
+    int retentionHours;
+
+    private final AtomicLong published = new AtomicLong();
+    private volatile double publishedPerSecond;
+    private long backoffUntil;
+    private long backoff;
+
+    // must be called inside the transaction that writes the change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String action, List<?> dtos) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate("insert into outbox (action, payload, created_at) values (?, ?, ?)", dtos, batchSize, (ps, dto) -> {
+            ps.setString(1, action);
+            ps.setString(2, RegistrarMessageCodec.encode(dto));
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${registrar.outbox.poll-interval:PT1S}")
+    public void relay() throws InterruptedException {
+        if (System.currentTimeMillis() < backoffUntil) {
+            return;
+        }
+        long start = System.nanoTime();
+        int sent = 0;
+        while (true) {
+            List<OutboundMessage> batch = jdbcTemplate.query(
+                    "select outbox_id, action, payload from outbox where sent_at is null order by outbox_id limit ?",
+                    (rs, n) -> new OutboundMessage(messageId(rs.getInt("outbox_id")),
+                            rs.getString("action") + " " + rs.getString("payload")),
+                    relayBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Set<String> failed = new HashSet<>();
+            for (OutboundMessage m : registrarPublisher.publish(batch)) {
+                failed.add(m.id());
+            }
+            List<OutboundMessage> confirmed = new ArrayList<>();
+            for (OutboundMessage m : batch) {
+                if (!failed.contains(m.id())) {
+                    confirmed.add(m);
+                }
+            }
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            jdbcTemplate.batchUpdate("update outbox set sent_at=? where outbox_id=?", confirmed, batchSize, (ps, m) -> {
+                ps.setTimestamp(1, now);
+                ps.setInt(2, outboxId(m.id()));
+            });
+            sent += confirmed.size();
+            published.addAndGet(confirmed.size());
+
+            if (!failed.isEmpty()) {
+                // leave the rest for a later run, backing off while the broker is unavailable
+                backoff = (backoff == 0) ? 1000 : Math.min(backoff * 2, 60_000);
+                backoffUntil = System.currentTimeMillis() + backoff;
+                log.warn("{} outbox message(s) not confirmed, next relay in {} ms", failed.size(), backoff);
+                break;
+            }
+            backoff = 0;
+            if (batch.size() < relayBatchSize) {
+                break;
+            }
+        }
+        if (sent > 0) {
+            publishedPerSecond = sent / ((System.nanoTime() - start) / 1e9);
+        }
+        jdbcTemplate.update("delete from outbox where sent_at < ?",
+                new Timestamp(System.currentTimeMillis() - retentionHours * 3_600_000L));
+    }
+
+    public OutboxStatsDTO stats() {
+        return jdbcTemplate.queryForObject(
+                "select count(*), min(created_at) from outbox where sent_at is null",
+                (rs, n) -> {
+                    Timestamp oldest = rs.getTimestamp(2);
+                    long lag = (oldest == null) ? 0 : System.currentTimeMillis() - oldest.getTime();
+                    return new OutboxStatsDTO(rs.getLong(1), lag, published.get(), publishedPerSecond);
+                });
+    }
+
+    // the outbox id is part of the message id, so the registrar can drop a message
+    // that is published again after a lost confirm
+    private static String messageId(int outboxId) {
+        return "gradebook-outbox-" + outboxId;
+    }
+
+    private static int outboxId(String messageId) {
+        return Integer.parseInt(messageId.substring(messageId.lastIndexOf('-') + 1));
+    }
+}
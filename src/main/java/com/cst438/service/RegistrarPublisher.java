@@ -0,0 +1,75 @@
+package com.cst438.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/*
+ * Publishes messages to the registrar_service queue and waits for the broker's
+ * publisher confirms.  Used by the outbox relay, which marks the confirmed
+ * messages sent and retries the rest on a later run.
+ */
+@Service
+public class RegistrarPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrarPublisher.class);
+
+    @Autowired
+    RabbitTemplate rabbitTemplate;
+
+    String queueName = "registrar_service";
+
+    @Value("${registrar.publisher.confirm-timeout:PT5S}")
+    Duration confirmTimeout;
+
+    // send the batch and wait for the publisher confirms.
+    // returns the messages the broker did not confirm, in their original order
+    public List<OutboundMessage> publish(List<OutboundMessage> batch) throws InterruptedException {
+        List<CorrelationData> confirms = new ArrayList<>();
+        for (OutboundMessage message : batch) {
+            CorrelationData correlation = new CorrelationData(message.id());
+            try {
+                rabbitTemplate.convertAndSend("", queueName, message.body(), m -> {
+                    m.getMessageProperties().setMessageId(message.id());
+                    return m;
+                }, correlation);
+            } catch (AmqpException e) {
+                // broker is not reachable, the rest of the batch is retried
+                log.warn("Could not publish to {}: {}", queueName, e.getMessage());
+                break;
+            }
+            confirms.add(correlation);
+        }
+
+        List<OutboundMessage> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        for (int i = 0; i < batch.size(); i++) {
+            if (i >= confirms.size()) {
+                failed.add(batch.get(i));
+                continue;
+            }
+            try {
+                long wait = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = confirms.get(i).getFuture().get(wait, TimeUnit.NANOSECONDS);
+                if (!confirm.isAck()) {
+                    failed.add(batch.get(i));
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                failed.add(batch.get(i));
+            }
+        }
+        return failed;
+    }
+}
@@ -1,17 +1,31 @@
 package com.cst438.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
 
+import com.rabbitmq.client.Channel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class RegistrarServiceProxy {
 
-    Queue registrarServiceQueue = new Queue("registrar_service", true);
+    private static final Logger log = LoggerFactory.getLogger(RegistrarServiceProxy.class);
 
     @Bean
     public Queue createQueue() {
@@ -19,29 +33,92 @@ public class RegistrarServiceProxy {
     }
 
     @Autowired
-    RabbitTemplate rabbitTemplate;
+    RegistrarSyncService registrarSyncService;
 
-    @RabbitListener(queues = "gradebook_service")
-    public void receiveFromRegistrar(String message)  {
-        //TODO implement this message
-    }
+    @Autowired
+    MessageDeduplicator messageDeduplicator;
 
+    @Autowired
+    MeterRegistry meterRegistry;
 
-    private void sendMessage(String s) {
-        rabbitTemplate.convertAndSend(registrarServiceQueue.getName(), s);
-    }
-    private static String asJsonString(final Object obj) {
+    // messages arrive in batches (spring.rabbitmq.listener.simple.batch-size) and are
+    // acknowledged manually once the batch has been committed.
+    // messages already processed are skipped and repeated changes to the same
+    // row are coalesced so only the latest state is written
+    @RabbitListener(queues = "gradebook_service", batch = "true")
+    public void receiveFromRegistrar(List<Message> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            return new ObjectMapper().writeValueAsString(obj);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            receiveBatch(messages, channel);
+        } finally {
+            sample.stop(Timer.builder("gradebook.registrar.batch")
+                    .description("Time to apply and acknowledge one registrar batch")
+                    .register(meterRegistry));
         }
     }
-    private static <T> T  fromJsonString(String str, Class<T> valueType ) {
+
+    private void receiveBatch(List<Message> messages, Channel channel) throws IOException {
+        List<RegistrarMessage> batch = new ArrayList<>();
+        List<String> messageIds = new ArrayList<>();
+        boolean[] duplicate = new boolean[messages.size()];
+        Set<String> inBatch = new HashSet<>();
+        for (int i = 0; i < messages.size(); i++) {
+            String id = messages.get(i).getMessageProperties().getMessageId();
+            if (messageDeduplicator.isDuplicate(id) || (id != null && !inBatch.add(id))) {
+                duplicate[i] = true;
+                continue;
+            }
+            batch.add(RegistrarMessage.parse(new String(messages.get(i).getBody(), StandardCharsets.UTF_8)));
+            messageIds.add(id);
+        }
         try {
-            return new ObjectMapper().readValue(str, valueType);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            List<RegistrarMessage> coalesced = RegistrarSyncService.coalesce(batch);
+            if (log.isDebugEnabled()) {
+                log.debug("Registrar batch of {}: {} duplicate(s), {} write(s) after coalescing",
+                        messages.size(), messages.size() - batch.size(), coalesced.size());
+            }
+            registrarSyncService.apply(coalesced);
+            messageDeduplicator.markProcessed(messageIds);
+            channel.basicAck(deliveryTag(messages.get(messages.size() - 1)), true);
+            count("applied", batch.size());
+            count("duplicate", messages.size() - batch.size());
+        } catch (RuntimeException e) {
+            // retry one message per transaction so a bad message does not hold back the rest
+            log.warn("Registrar batch of {} failed, applying messages one at a time", messages.size(), e);
+            int next = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                long tag = deliveryTag(messages.get(i));
+                if (duplicate[i]) {
+                    channel.basicAck(tag, false);
+                    count("duplicate", 1);
+                    continue;
+                }
+                RegistrarMessage message = batch.get(next);
+                String id = messageIds.get(next++);
+                try {
+                    registrarSyncService.apply(List.of(message));
+                    messageDeduplicator.markProcessed(Collections.singletonList(id));
+                    channel.basicAck(tag, false);
+                    count("applied", 1);
+                } catch (RuntimeException ex) {
+                    log.error("Rejecting registrar message {}", message, ex);
+                    channel.basicNack(tag, false, false);
+                    count("rejected", 1);
+                }
+            }
         }
     }
+
+    private void count(String outcome, int n) {
+        if (n > 0) {
+            meterRegistry.counter("gradebook.registrar.messages", "outcome", outcome).increment(n);
+        }
+    }
+
+    private static long deliveryTag(Message m) {
+        return m.getMessageProperties().getDeliveryTag();
+    }
 }
@@ -0,0 +1,285 @@
+package com.cst438.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.cst438.domain.Course;
+import com.cst438.domain.Section;
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserDTO;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Applies course, section, user and enrollment changes sent by the registrar.
+ * Rows keep the ids assigned by the registrar, so changes are written as upserts
+ * keyed by id.  A list of messages is applied in arrival order in one transaction
+ * and consecutive messages with the same action go out as one JDBC batch.
+ * Changed courses and sections are evicted from the second level cache after commit.
+ */
+@Service
+public class RegistrarSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrarSyncService.class);
+
+    static final String MERGE_COURSE =
+            "merge into course (course_id, title, credits) key (course_id) values (?, ?, ?)";
+    // a course is deleted with its sections and everything that refers to them
+    static final String DELETE_COURSE_SUMMARIES =
+            "delete from grade_summary where enrollment_id in (select e.enrollment_id from enrollment e " +
+            "join section s on s.section_no=e.section_no where s.course_id=?)";
+    static final String DELETE_COURSE_GRADES =
+            "delete from grade where assignment_id in (select a.assignment_id from assignment a " +
+            "join section s on s.section_no=a.section_no where s.course_id=?) " +
+            "or enrollment_id in (select e.enrollment_id from enrollment e " +
+            "join section s on s.section_no=e.section_no where s.course_id=?)";
+    static final String DELETE_COURSE_ASSIGNMENTS =
+            "delete from assignment where section_no in (select section_no from section where course_id=?)";
+    static final String DELETE_COURSE_ENROLLMENTS =
+            "delete from enrollment where section_no in (select section_no from section where course_id=?)";
+    static final String DELETE_COURSE_SECTIONS =
+            "delete from section where course_id=?";
+    static final String DELETE_COURSE =
+            "delete from course where course_id=?";
+
+    static final String MERGE_SECTION =
+            "merge into section (section_no, course_id, sec_id, term_id, building, room, times, instructor_email) " +
+            "key (section_no) select ?, ?, ?, term_id, ?, ?, ?, ? from term where tyear=? and semester=?";
+    static final String DELETE_SECTION_SUMMARIES =
+            "delete from grade_summary where enrollment_id in (select enrollment_id from enrollment where section_no=?)";
+    static final String DELETE_SECTION_GRADES =
+            "delete from grade where assignment_id in (select assignment_id from assignment where section_no=?) " +
+            "or enrollment_id in (select enrollment_id from enrollment where section_no=?)";
+    static final String DELETE_SECTION_ASSIGNMENTS =
+            "delete from assignment where section_no=?";
+    static final String DELETE_SECTION_ENROLLMENTS =
+            "delete from enrollment where section_no=?";
+    static final String DELETE_SECTION =
+            "delete from section where section_no=?";
+
+    // password is left to its column default on insert and untouched on update
+    static final String MERGE_USER =
+            "merge into user_table (id, name, email, type) key (id) values (?, ?, ?, ?)";
+    static final String DELETE_USER_SUMMARIES =
+            "delete from grade_summary where enrollment_id in (select enrollment_id from enrollment where user_id=?)";
+    static final String DELETE_USER_GRADES =
+            "delete from grade where enrollment_id in (select enrollment_id from enrollment where user_id=?)";
+    static final String DELETE_USER_ENROLLMENTS =
+            "delete from enrollment where user_id=?";
+    static final String DELETE_USER =
+            "delete from user_table where id=?";
+
+    // the final grade belongs to the gradebook and is not overwritten by the registrar
+    static final String MERGE_ENROLLMENT =
+            "merge into enrollment (enrollment_id, section_no, user_id) key (enrollment_id) values (?, ?, ?)";
+    static final String DELETE_ENROLLMENT_SUMMARY =
+            "delete from grade_summary where enrollment_id=?";
+    static final String DELETE_ENROLLMENT_GRADES =
+            "delete from grade where enrollment_id=?";
+    static final String DELETE_ENROLLMENT =
+            "delete from enrollment where enrollment_id=?";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Value("${gradebook.jdbc.batch-size:100}")
+    int batchSize;
+
+    // keep only the latest message for each row.  The latest message takes the place
+    // of the first one for that row, so a section is still written before the
+    // enrollments that refer to it.
+    // a delete stays where it is and nothing is coalesced across it: a delete cascades to
+    // other rows, so a later add or update must still be applied after it
+    public static List<RegistrarMessage> coalesce(List<RegistrarMessage> messages) {
+        Map<String, Integer> positions = new HashMap<>();
+        List<RegistrarMessage> result = new ArrayList<>();
+        for (RegistrarMessage message : messages) {
+            if (message.isDelete()) {
+                positions.clear();
+                result.add(message);
+                continue;
+            }
+            String key = message.key();
+            Integer position = (key == null) ? null : positions.get(key);
+            if (position == null) {
+                if (key != null) {
+                    positions.put(key, result.size());
+                }
+                result.add(message);
+            } else {
+                result.set(position, message);
+            }
+        }
+        return result;
+    }
+
+    @Transactional
+    public void apply(List<RegistrarMessage> messages) {
+        Set<String> courseIds = new HashSet<>();
+        Set<Integer> sectionNos = new HashSet<>();
+        boolean[] courseDeleted = new boolean[1];
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // the rows were written with JDBC, so hibernate does not know the cached copies are stale
+                for (String courseId : courseIds) {
+                    entityManagerFactory.getCache().evict(Course.class, courseId);
+                }
+                if (courseDeleted[0]) {
+                    // the ids of the sections deleted with a course are not known here
+                    entityManagerFactory.getCache().evict(Section.class);
+                }
+                for (Integer sectionNo : sectionNos) {
+                    entityManagerFactory.getCache().evict(Section.class, sectionNo);
+                }
+            }
+        });
+        for (RegistrarMessage message : messages) {
+            if (message.action().endsWith("Course")) {
+                courseIds.add(message.decode(CourseDTO.class).courseId());
+                courseDeleted[0] |= message.action().equals("deleteCourse");
+            } else if (message.action().endsWith("Section")) {
+                sectionNos.add(message.decode(SectionDTO.class).secNo());
+            }
+        }
+
+        String action = null;
+        List<RegistrarMessage> run = new ArrayList<>();
+        for (RegistrarMessage message : messages) {
+            if (!message.action().equals(action)) {
+                applyRun(action, run);
+                action = message.action();
+                run = new ArrayList<>();
+            }
+            run.add(message);
+        }
+        applyRun(action, run);
+    }
+
+    private void applyRun(String action, List<RegistrarMessage> run) {
+        if (run.isEmpty()) {
+            return;
+        }
+        switch (action) {
+            case "addCourse", "updateCourse" -> {
+                List<CourseDTO> courses = decodeAll(run, CourseDTO.class);
+                batch(MERGE_COURSE, courses, (ps, c) -> {
+                    ps.setString(1, c.courseId());
+                    ps.setString(2, c.title());
+                    ps.setInt(3, c.credits());
+                });
+            }
+            case "deleteCourse" -> {
+                List<CourseDTO> courses = decodeAll(run, CourseDTO.class);
+                batch(DELETE_COURSE_SUMMARIES, courses, (ps, c) -> ps.setString(1, c.courseId()));
+                batch(DELETE_COURSE_GRADES, courses, (ps, c) -> {
+                    ps.setString(1, c.courseId());
+                    ps.setString(2, c.courseId());
+                });
+                batch(DELETE_COURSE_ASSIGNMENTS, courses, (ps, c) -> ps.setString(1, c.courseId()));
+                batch(DELETE_COURSE_ENROLLMENTS, courses, (ps, c) -> ps.setString(1, c.courseId()));
+                batch(DELETE_COURSE_SECTIONS, courses, (ps, c) -> ps.setString(1, c.courseId()));
+                batch(DELETE_COURSE, courses, (ps, c) -> ps.setString(1, c.courseId()));
+            }
+            case "addSection", "updateSection" -> {
+                List<SectionDTO> sections = decodeAll(run, SectionDTO.class);
+                int[][] counts = batch(MERGE_SECTION, sections, (ps, s) -> {
+                    ps.setInt(1, s.secNo());
+                    ps.setString(2, s.courseId());
+                    ps.setInt(3, s.secId());
+                    ps.setString(4, s.building());
+                    ps.setString(5, s.room());
+                    ps.setString(6, s.times());
+                    ps.setString(7, s.instructorEmail());
+                    ps.setInt(8, s.year());
+                    ps.setString(9, s.semester());
+                });
+                // the term is looked up in the statement, a section for an unknown term writes no row
+                int i = 0;
+                for (int[] batchCounts : counts) {
+                    for (int count : batchCounts) {
+                        SectionDTO section = sections.get(i++);
+                        if (count == 0) {
+                            throw new IllegalArgumentException("No term " + section.year() + " " + section.semester()
+                                    + " for section " + section.secNo());
+                        }
+                    }
+                }
+            }
+            case "deleteSection" -> {
+                List<SectionDTO> sections = decodeAll(run, SectionDTO.class);
+                batch(DELETE_SECTION_SUMMARIES, sections, (ps, s) -> ps.setInt(1, s.secNo()));
+                batch(DELETE_SECTION_GRADES, sections, (ps, s) -> {
+                    ps.setInt(1, s.secNo());
+                    ps.setInt(2, s.secNo());
+                });
+                batch(DELETE_SECTION_ASSIGNMENTS, sections, (ps, s) -> ps.setInt(1, s.secNo()));
+                batch(DELETE_SECTION_ENROLLMENTS, sections, (ps, s) -> ps.setInt(1, s.secNo()));
+                batch(DELETE_SECTION, sections, (ps, s) -> ps.setInt(1, s.secNo()));
+            }
+            case "addUser", "updateUser" -> {
+                List<UserDTO> users = decodeAll(run, UserDTO.class);
+                batch(MERGE_USER, users, (ps, u) -> {
+                    ps.setInt(1, u.id());
+                    ps.setString(2, u.name());
+                    ps.setString(3, u.email());
+                    ps.setString(4, u.type());
+                });
+            }
+            case "deleteUser" -> {
+                List<UserDTO> users = decodeAll(run, UserDTO.class);
+                batch(DELETE_USER_SUMMARIES, users, (ps, u) -> ps.setInt(1, u.id()));
+                batch(DELETE_USER_GRADES, users, (ps, u) -> ps.setInt(1, u.id()));
+                batch(DELETE_USER_ENROLLMENTS, users, (ps, u) -> ps.setInt(1, u.id()));
+                batch(DELETE_USER, users, (ps, u) -> ps.setInt(1, u.id()));
+            }
+            case "addEnrollment", "updateEnrollment" -> {
+                List<EnrollmentDTO> enrollments = decodeAll(run, EnrollmentDTO.class);
+                batch(MERGE_ENROLLMENT, enrollments, (ps, e) -> {
+                    ps.setInt(1, e.enrollmentId());
+                    ps.setInt(2, e.sectionNo());
+                    ps.setInt(3, e.studentId());
+                });
+            }
+            case "deleteEnrollment" -> {
+                List<EnrollmentDTO> enrollments = decodeAll(run, EnrollmentDTO.class);
+                batch(DELETE_ENROLLMENT_SUMMARY, enrollments, (ps, e) -> ps.setInt(1, e.enrollmentId()));
+                batch(DELETE_ENROLLMENT_GRADES, enrollments, (ps, e) -> ps.setInt(1, e.enrollmentId()));
+                batch(DELETE_ENROLLMENT, enrollments, (ps, e) -> ps.setInt(1, e.enrollmentId()));
+            }
+            default -> log.warn("Ignoring {} registrar message(s) with unknown action {}", run.size(), action);
+        }
+    }
+
+    private <T> int[][] batch(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        return jdbcTemplate.batchUpdate(sql, rows, batchSize, setter);
+    }
+
+    private static <T> List<T> decodeAll(List<RegistrarMessage> run, Class<T> valueType) {
+        List<T> rows = new ArrayList<>();
+        for (RegistrarMessage message : run) {
+            rows.add(message.decode(valueType));
+        }
+        return rows;
+    }
+}
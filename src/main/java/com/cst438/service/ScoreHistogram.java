@@ -0,0 +1,83 @@
+package com.cst438.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Counts of scores from 0 to 100, filled one (score, count) pair at a time.
+ * Because scores are whole numbers in a fixed range the counts are an exact
+ * sketch: percentiles come out exact in constant memory whatever the number of grades.
+ */
+public class ScoreHistogram {
+
+    static final int MAX_SCORE = 100;
+
+    private final long[] counts = new long[MAX_SCORE + 1];
+    private long total;
+    private long sum;
+
+    public void add(int score, long count) {
+        if (score < 0 || score > MAX_SCORE) {
+            throw new IllegalArgumentException("Score must be between 0 and 100 " + score);
+        }
+        counts[score] += count;
+        total += count;
+        sum += score * count;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public Integer min() {
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            if (counts[score] > 0) {
+                return score;
+            }
+        }
+        return null;
+    }
+
+    public Integer max() {
+        for (int score = MAX_SCORE; score >= 0; score--) {
+            if (counts[score] > 0) {
+                return score;
+            }
+        }
+        return null;
+    }
+
+    public Double mean() {
+        return total == 0 ? null : (double) sum / total;
+    }
+
+    // nearest rank percentile, q between 0 and 1.  null when there are no scores
+    public Integer percentile(double q) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            seen += counts[score];
+            if (seen >= rank) {
+                return score;
+            }
+        }
+        return MAX_SCORE;
+    }
+
+    // counts in buckets of the given width.  A perfect score goes in the top bucket
+    public List<Long> buckets(int width) {
+        int n = MAX_SCORE / width;
+        List<Long> buckets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            buckets.add(0L);
+        }
+        for (int score = 0; score <= MAX_SCORE; score++) {
+            int i = Math.min(score / width, n - 1);
+            buckets.set(i, buckets.get(i) + counts[score]);
+        }
+        return buckets;
+    }
+}
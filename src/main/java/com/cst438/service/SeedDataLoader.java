@@ -0,0 +1,48 @@
+package com.cst438.service;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+/*
+ * Loads the gradebook.seed-data script into a new database.  schema.sql runs on every start
+ * of the prod profile, but a seed is plain inserts that fail on rows already there, so it
+ * only runs while the database has no terms, that is on the first start.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty("gradebook.seed-data")
+public class SeedDataLoader implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedDataLoader.class);
+
+    @Autowired
+    DataSource dataSource;
+
+    @Value("${gradebook.seed-data}")
+    Resource seedData;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!seedData.exists()) {
+            return;
+        }
+        Integer terms = new JdbcTemplate(dataSource).queryForObject("select count(*) from term", Integer.class);
+        if (terms != null && terms > 0) {
+            log.info("database already has data, {} not loaded", seedData.getDescription());
+            return;
+        }
+        new ResourceDatabasePopulator(seedData).execute(dataSource);
+        log.info("loaded {}", seedData.getDescription());
+    }
+}
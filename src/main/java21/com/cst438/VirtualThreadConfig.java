@@ -0,0 +1,47 @@
+package com.cst438;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+ * Only compiled by the java21 profile.  Runs each request, each streamed export and each
+ * Rabbit listener consumer on its own virtual thread instead of a platform thread pool,
+ * so a thread waiting on JDBC or the broker no longer holds one of a fixed number of threads.
+ * Concurrency is then bounded by the connection pool rather than server.tomcat.threads.max.
+ * Code on these threads must not block inside synchronized, that pins the carrier thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gradebook.threads.virtual", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(executor("tomcat-handler-"));
+    }
+
+    // the gradebook_service consumers, one virtual thread per consumer
+    @Bean
+    public ContainerCustomizer<SimpleMessageListenerContainer> virtualThreadListenerContainer() {
+        return container -> container.setTaskExecutor(new TaskExecutorAdapter(executor("rabbit-listener-")));
+    }
+
+    // StreamingResponseBody grade exports
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor("mvc-async-")));
+    }
+
+    private static ExecutorService executor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory());
+    }
+}
@@ -53,3 +53,6 @@ insert into grade (grade_id, enrollment_id, assignment_id, score) values
 ( 1, 2, 1, 95),
 (2, 4, 4, null),
 (3, 4, 3, null);
+
+insert into grade_summary (enrollment_id, graded_count, score_sum)
+select enrollment_id, count(score), coalesce(sum(score), 0) from grade group by enrollment_id;
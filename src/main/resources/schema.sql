@@ -1,4 +1,6 @@
-create table term (
+-- every statement can run again on an existing database, so the prod profile
+-- runs this script on each start against its file database
+create table if not exists term (
     term_id  int primary key,
     tyear     int not null check (tyear between 2000 and 2030),
     semester varchar(10) not null check (semester in ('Spring', 'Fall')),
@@ -9,16 +11,17 @@ create table term (
     end_date Date not null
 );
 
-create table course (
+create index if not exists term_year_semester_idx on term(tyear, semester);
+
+create table if not exists course (
     course_id varchar(10) primary key,
     title varchar(100) not null,
     credits int not null check (credits >= 0)
 );
 
-create sequence sec_seq;
-ALTER SEQUENCE sec_seq RESTART WITH 1000;
+create sequence if not exists sec_seq start with 1000 increment by 50;
 
-create table section (
+create table if not exists section (
     section_no int default next value for sec_seq  primary key,
     course_id varchar(10) not null,
     sec_id int not null not null,
@@ -31,21 +34,24 @@ create table section (
     foreign key(term_id) references term(term_id)
 );
 
-create sequence user_seq;
-ALTER SEQUENCE user_seq RESTART WITH 7000;
+create index if not exists section_term_idx on section(term_id);
+create index if not exists section_course_sec_idx on section(course_id, sec_id);
+create index if not exists section_sec_id_idx on section(sec_id);
+create index if not exists section_instructor_idx on section(instructor_email);
+
+create sequence if not exists user_seq start with 7000 increment by 50;
 
-create table user_table (
+create table if not exists user_table (
 	id integer  default next value for user_seq primary key,
     name varchar(50) not null,
     email varchar(50) not null unique,
-    password varchar(100) not null,
+    password varchar(100) default '' not null,
     type varchar(10) not null  check (type in ('STUDENT', 'ADMIN', 'INSTRUCTOR'))
 );
 
-create sequence enroll_seq;
-ALTER SEQUENCE enroll_seq RESTART WITH 10000;
+create sequence if not exists enroll_seq start with 10000 increment by 50;
 
-create table enrollment (
+create table if not exists enrollment (
     enrollment_id integer default next value for enroll_seq primary key,
     grade varchar(5),
     section_no int not null,
@@ -54,10 +60,12 @@ create table enrollment (
     foreign key(user_id) references user_table(id)
 );
 
-create sequence assignment_seq;
-ALTER SEQUENCE assignment_seq RESTART WITH 6000;
+create index if not exists enrollment_section_idx on enrollment(section_no);
+create index if not exists enrollment_user_section_idx on enrollment(user_id, section_no);
+
+create sequence if not exists assignment_seq start with 6000 increment by 50;
 
-create table assignment (
+create table if not exists assignment (
     assignment_id int  default next value for assignment_seq primary key,
     section_no int not null,
     title varchar(250) not null,
@@ -65,10 +73,11 @@ create table assignment (
     foreign key (section_no) references section(section_no)
 );
 
-create sequence grade_seq;
-ALTER SEQUENCE grade_seq RESTART WITH 12000;
+create index if not exists assignment_section_due_idx on assignment(section_no, due_date);
 
-create table grade (
+create sequence if not exists grade_seq start with 12000 increment by 50;
+
+create table if not exists grade (
     grade_id int default next value for grade_seq primary key,
     enrollment_id int not null,
     assignment_id int not null,
@@ -76,3 +85,27 @@ create table grade (
     foreign key(enrollment_id) references enrollment(enrollment_id),
     foreign key(assignment_id) references assignment(assignment_id)
 );
+
+create unique index if not exists grade_enrollment_assignment_idx on grade(enrollment_id, assignment_id);
+create index if not exists grade_assignment_idx on grade(assignment_id);
+
+-- count and sum of the scored grades per enrollment, kept up to date as grades change
+create table if not exists grade_summary (
+    enrollment_id int primary key,
+    graded_count int default 0 not null,
+    score_sum int default 0 not null,
+    foreign key(enrollment_id) references enrollment(enrollment_id)
+);
+
+create sequence if not exists outbox_seq;
+
+-- messages for the registrar written in the same transaction as the change they describe
+create table if not exists outbox (
+    outbox_id int default next value for outbox_seq primary key,
+    action varchar(30) not null,
+    payload varchar(2000) not null,
+    created_at timestamp not null,
+    sent_at timestamp
+);
+
+create index if not exists outbox_sent_idx on outbox(sent_at, outbox_id);
@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.cst438.domain.*;
 import com.cst438.dto.*;
+import com.cst438.monitoring.RequestStatementsInterceptor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import net.bytebuddy.asm.Advice;
 import org.aspectj.lang.annotation.Before;
@@ -17,14 +19,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 @AutoConfigureMockMvc
@@ -54,6 +63,8 @@ public class AssignmentControllerUnitTest {
     CourseRepository courseRepository;
     @Autowired
     SectionRepository sectionRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
 
     // Create current course and section data to avoid date errors
@@ -234,6 +245,175 @@ public class AssignmentControllerUnitTest {
         assertNull(g.getScore());
     }
 
+    @Test
+    public void itShouldCreateMissingGradesOnce() throws Exception {
+        // enrollment 2 is in section 8 but has no grade yet for assignment 2
+        assertNull(gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2));
+        List<Map<String, Object>> summary = jdbcTemplate.queryForList(
+                "select graded_count, score_sum from grade_summary where enrollment_id=2");
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = mvc.perform(
+                            MockMvcRequestBuilders
+                                    .get("/assignments/2/grades")
+                                    .accept(MediaType.APPLICATION_JSON))
+                    .andReturn()
+                    .getResponse();
+            assertEquals(200, response.getStatus());
+
+            List<GradeDTO> resultList = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<GradeDTO>>() {});
+            assertEquals(1, resultList.size(), "One grade per enrolled student");
+            assertEquals(Integer.valueOf(0), resultList.get(0).score(), "New grade should start at 0");
+        }
+
+        // the new grade of 0 is counted in the summary once
+        int gradedCount = summary.isEmpty() ? 0 : (Integer) summary.get(0).get("graded_count");
+        assertEquals(gradedCount + 1, jdbcTemplate.queryForObject(
+                "select graded_count from grade_summary where enrollment_id=2", Integer.class));
+
+        // clean up the created grade and put the summary back as it was
+        Grade g = gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2);
+        assertNotNull(g);
+        gradeRepository.delete(g);
+        if (summary.isEmpty()) {
+            jdbcTemplate.update("delete from grade_summary where enrollment_id=2");
+        } else {
+            jdbcTemplate.update("update grade_summary set graded_count=?, score_sum=? where enrollment_id=2",
+                    summary.get(0).get("graded_count"), summary.get(0).get("score_sum"));
+        }
+    }
+
+    @Test
+    public void itShouldListStudentAssignmentsWithScores() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/assignments?studentId=3&year=2024&semester=Spring")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+
+        List<AssignmentStudentDTO> resultList = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<AssignmentStudentDTO>>() {});
+        assertEquals(2, resultList.size());
+        // ordered by due date, the second assignment has no grade row
+        assertEquals("db homework 1", resultList.get(0).title());
+        assertEquals(Integer.valueOf(95), resultList.get(0).score());
+        assertEquals("db homework 2", resultList.get(1).title());
+        assertEquals("cst363", resultList.get(1).courseId());
+    }
+
+    @Test
+    public void itShouldPageStudentAssignmentsWithCursor() throws Exception {
+        MockHttpServletResponse first = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/assignments?studentId=3&year=2024&semester=Spring&limit=1")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, first.getStatus());
+        List<AssignmentStudentDTO> firstPage = new ObjectMapper().readValue(first.getContentAsString(), new TypeReference<List<AssignmentStudentDTO>>() {});
+        assertEquals(1, firstPage.size());
+        assertEquals("db homework 1", firstPage.get(0).title());
+        String cursor = first.getHeader(PageCursor.NEXT_CURSOR_HEADER);
+        assertNotNull(cursor, "More assignments should follow");
+
+        MockHttpServletResponse second = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/assignments?studentId=3&year=2024&semester=Spring&limit=1&cursor=" + cursor)
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, second.getStatus());
+        List<AssignmentStudentDTO> secondPage = new ObjectMapper().readValue(second.getContentAsString(), new TypeReference<List<AssignmentStudentDTO>>() {});
+        assertEquals(1, secondPage.size());
+        assertEquals("db homework 2", secondPage.get(0).title());
+        assertNull(second.getHeader(PageCursor.NEXT_CURSOR_HEADER), "Last page has no cursor");
+    }
+
+    @Test
+    public void withoutLimitEveryRowIsReturned() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections/8/assignments")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+        List<AssignmentDTO> all = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<AssignmentDTO>>() {});
+        assertEquals(2, all.size());
+        assertNull(response.getHeader(PageCursor.NEXT_CURSOR_HEADER), "Unpaged response has no cursor");
+
+        // paging starts only when the client asks for a limit
+        MockHttpServletResponse paged = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections/8/assignments?limit=1")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertNotNull(paged.getHeader(PageCursor.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void assignmentWithoutDueDateIsPagedLast() throws Exception {
+        Assignment undated = new Assignment();
+        undated.setTitle("no due date");
+        undated.setSection(sectionRepository.findById(8).get());
+        undated = assignmentRepository.save(undated);
+        try {
+            List<Integer> ids = new ArrayList<>();
+            String cursor = null;
+            do {
+                MockHttpServletResponse response = mvc.perform(
+                                MockMvcRequestBuilders
+                                        .get("/sections/8/assignments?limit=1" + (cursor == null ? "" : "&cursor=" + cursor))
+                                        .accept(MediaType.APPLICATION_JSON))
+                        .andReturn()
+                        .getResponse();
+                assertEquals(200, response.getStatus());
+                List<AssignmentDTO> page = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<AssignmentDTO>>() {});
+                for (AssignmentDTO a : page) {
+                    ids.add(a.id());
+                }
+                cursor = response.getHeader(PageCursor.NEXT_CURSOR_HEADER);
+            } while (cursor != null);
+
+            assertEquals(3, ids.size());
+            assertEquals(undated.getAssignmentId(), ids.get(2));
+        } finally {
+            assignmentRepository.delete(undated);
+        }
+    }
+
+    @Test
+    public void invalidCursorIsRejected() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections/8/assignments?cursor=not-a-cursor")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Invalid cursor", response.getErrorMessage());
+    }
+
+    @Test
+    public void itShouldListInstructorSections() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections?email=dwisneski@csumb.edu&year=2024&semester=Fall")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+
+        List<SectionDTO> resultList = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<SectionDTO>>() {});
+        assertEquals(1, resultList.size());
+        assertEquals("cst438", resultList.get(0).courseId());
+        assertEquals("david wisneski", resultList.get(0).instructorName());
+        assertEquals("dwisneski@csumb.edu", resultList.get(0).instructorEmail());
+    }
+
     @Test
     public void gradeAssignmentInvalidId() throws Exception {
 
@@ -263,6 +443,196 @@ public class AssignmentControllerUnitTest {
 
 
 
+    @Test
+    public void gradeUploadIsAllOrNothing() throws Exception {
+        Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(4, 4);
+        Integer before = grade.getScore();
+
+        // first row is valid, second row has an unknown grade id
+        String gradeData = "[{\"gradeId\": " + grade.getGradeId() + ", \"score\": 80}, {\"gradeId\": 99999, \"score\": 90}]";
+
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .put("/grades")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(gradeData))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Grade not found 99999", response.getErrorMessage());
+
+        // the valid row must not have been applied
+        Grade g = gradeRepository.findById(grade.getGradeId()).orElse(null);
+        assertEquals(before, g.getScore());
+    }
+
+    @Test
+    public void itShouldReturnAssignmentStats() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections/8/assignments/stats")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+
+        List<AssignmentStatsDTO> resultList = new ObjectMapper().readValue(response.getContentAsString(), new TypeReference<List<AssignmentStatsDTO>>() {});
+        assertEquals(2, resultList.size(), "One entry per assignment in the section");
+
+        // assignment 1 has a single grade of 95
+        AssignmentStatsDTO stats = resultList.get(0);
+        assertEquals(1, stats.assignmentId());
+        assertEquals(1, stats.gradedCount());
+        assertEquals(Integer.valueOf(95), stats.min());
+        assertEquals(Integer.valueOf(95), stats.max());
+        assertEquals(Integer.valueOf(95), stats.median());
+        assertEquals(Long.valueOf(1), stats.histogram().get(9));
+    }
+
+    @Test
+    public void assignmentStatsUnknownSection() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/sections/99999/assignments/stats")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(404, response.getStatus());
+        assertEquals("Section not found 99999", response.getErrorMessage());
+    }
+
+    @Test
+    public void gradeSummaryFollowsScoreChanges() throws Exception {
+        Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(4, 3);
+        assertNull(grade.getScore());
+        GradeSummaryDTO before = getSummary(4);
+
+        // a first score adds to the count, a second one only changes the sum
+        putScore(grade.getGradeId(), "80");
+        GradeSummaryDTO scored = getSummary(4);
+        assertEquals(before.gradedCount() + 1, scored.gradedCount());
+        assertEquals(before.scoreSum() + 80, scored.scoreSum());
+
+        putScore(grade.getGradeId(), "60");
+        GradeSummaryDTO rescored = getSummary(4);
+        assertEquals(scored.gradedCount(), rescored.gradedCount());
+        assertEquals(before.scoreSum() + 60, rescored.scoreSum());
+        assertEquals((double) rescored.scoreSum() / rescored.gradedCount(), rescored.average());
+
+        // clearing the score takes it out of the summary again
+        putScore(grade.getGradeId(), "null");
+        GradeSummaryDTO after = getSummary(4);
+        assertEquals(before.gradedCount(), after.gradedCount());
+        assertEquals(before.scoreSum(), after.scoreSum());
+    }
+
+    @Test
+    public void concurrentScoreUploadsKeepSummaryConsistent() throws Exception {
+        Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(4, 3);
+        assertNull(grade.getScore());
+        GradeSummaryDTO before = getSummary(4);
+
+        // two instructors keep uploading a score for the same grade at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> uploads = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            int offset = t;
+            uploads.add(executor.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    putScore(grade.getGradeId(), String.valueOf((i * 2 + offset) % 101));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> upload : uploads) {
+            upload.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // the summary counts the score that won exactly once
+        Integer last = gradeRepository.findByEnrollmentIdAndAssignmentId(4, 3).getScore();
+        GradeSummaryDTO after = getSummary(4);
+        assertEquals(before.gradedCount() + 1, after.gradedCount());
+        assertEquals(before.scoreSum() + last, after.scoreSum());
+
+        putScore(grade.getGradeId(), "null");
+        assertEquals(before.scoreSum(), getSummary(4).scoreSum());
+    }
+
+    // the first read of a large roster creates its grades in several batches,
+    // the budget covers only the page that is returned
+    @Test
+    public void firstPageOfLargeRosterStaysInBudget() throws Exception {
+        jdbcTemplate.update("insert into section (section_no, course_id, sec_id, term_id) values (9101, 'cst363', 99, 10)");
+        jdbcTemplate.update("insert into assignment (assignment_id, section_no, title, due_date) values (91001, 9101, 'large', '2024-09-01')");
+        for (int i = 0; i < 120; i++) {
+            jdbcTemplate.update("insert into user_table (id, name, email, type) values (?, ?, ?, 'STUDENT')",
+                    9101 + i, String.format("student %03d", i), "student" + i + "@large.edu");
+            jdbcTemplate.update("insert into enrollment (enrollment_id, section_no, user_id) values (?, 9101, ?)",
+                    91001 + i, 9101 + i);
+        }
+        try {
+            MvcResult result = mvc.perform(
+                            MockMvcRequestBuilders
+                                    .get("/assignments/91001/grades?limit=10")
+                                    .accept(MediaType.APPLICATION_JSON))
+                    .andReturn();
+            assertEquals(200, result.getResponse().getStatus());
+            List<GradeDTO> page = new ObjectMapper().readValue(result.getResponse().getContentAsString(), new TypeReference<List<GradeDTO>>() {});
+            assertEquals(10, page.size());
+            assertEquals("student 000", page.get(0).studentName());
+            assertEquals(120, jdbcTemplate.queryForObject("select count(*) from grade where assignment_id=91001", Integer.class));
+            int statements = (Integer) result.getRequest().getAttribute(RequestStatementsInterceptor.STATEMENTS_ATTRIBUTE);
+            assertTrue(statements <= 3, "statements " + statements);
+        } finally {
+            jdbcTemplate.update("delete from grade_summary where enrollment_id between 91001 and 91120");
+            jdbcTemplate.update("delete from grade where assignment_id=91001");
+            jdbcTemplate.update("delete from assignment where assignment_id=91001");
+            jdbcTemplate.update("delete from enrollment where section_no=9101");
+            jdbcTemplate.update("delete from section where section_no=9101");
+            jdbcTemplate.update("delete from user_table where id between 9101 and 9220");
+        }
+    }
+
+    @Test
+    public void gradeSummaryUnknownEnrollment() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/enrollments/99999/summary")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(404, response.getStatus());
+        assertEquals("Enrollment not found 99999", response.getErrorMessage());
+    }
+
+    private void putScore(int gradeId, String score) throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .put("/grades")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"gradeId\": " + gradeId + ", \"score\": " + score + "}]"))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+    }
+
+    private GradeSummaryDTO getSummary(int enrollmentId) throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .get("/enrollments/" + enrollmentId + "/summary")
+                                .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+        return fromJsonString(response.getContentAsString(), GradeSummaryDTO.class);
+    }
+
     private static String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -10,16 +10,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
 import com.cst438.domain.Enrollment;
 import com.cst438.domain.EnrollmentRepository;
 import com.cst438.dto.EnrollmentDTO;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @AutoConfigureMockMvc
 @SpringBootTest
 public class EnrollmentControllerUnitTest {
@@ -30,6 +36,35 @@ public class EnrollmentControllerUnitTest {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void getEnrollmentsUsesOneStatement() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MockHttpServletResponse response = mvc.perform(
+                MockMvcRequestBuilders
+                        .get("/sections/8/enrollments")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(200, response.getStatus());
+        List<EnrollmentDTO> result = fromJsonString(response.getContentAsString(), new TypeReference<List<EnrollmentDTO>>() {});
+        assertEquals(1, result.size());
+        assertEquals("thomas edison", result.get(0).name());
+        assertEquals("cst363", result.get(0).courseId());
+        assertEquals(2024, result.get(0).year());
+
+        // student, section, course and term all come back in the roster select
+        assertEquals(1, statistics.getPrepareStatementCount(), "Roster should be loaded with one SQL statement");
+    }
+
     @Test
     public void updateEnrollmentGrade() throws Exception {
         
@@ -87,6 +122,53 @@ public class EnrollmentControllerUnitTest {
         }
     }
 
+    @Test
+    public void updateEnrollmentGradeUnknownId() throws Exception {
+        Enrollment en = enrollmentRepository.findById(3).orElse(null);
+        String before = en.getGrade();
+
+        // first row is valid, second row has an unknown enrollment id
+        List<EnrollmentDTO> dto_list = new ArrayList<>();
+        dto_list.add(new EnrollmentDTO(3, "C", 3, null, null, null, null, 0, 10, null, null, null, 0, 0, null));
+        dto_list.add(new EnrollmentDTO(99999, "C", 3, null, null, null, null, 0, 10, null, null, null, 0, 0, null));
+
+        MockHttpServletResponse response = mvc.perform(
+                MockMvcRequestBuilders
+                        .put("/enrollments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(dto_list)))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Enrollment not found [99999]", response.getErrorMessage());
+
+        // the valid row must not have been applied
+        en = enrollmentRepository.findById(3).orElse(null);
+        assertEquals(before, en.getGrade());
+    }
+
+    @Test
+    public void updateEnrollmentGradeWritesOutbox() throws Exception {
+        Integer before = jdbcTemplate.queryForObject("select count(*) from outbox where action='updateEnrollment'", Integer.class);
+
+        List<EnrollmentDTO> dto_list = new ArrayList<>();
+        dto_list.add(new EnrollmentDTO(3, null, 3, null, null, null, null, 0, 10, null, null, null, 0, 0, null));
+
+        MockHttpServletResponse response = mvc.perform(
+                MockMvcRequestBuilders
+                        .put("/enrollments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(dto_list)))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+
+        // one registrar message per final grade, committed with the grade
+        Integer after = jdbcTemplate.queryForObject("select count(*) from outbox where action='updateEnrollment'", Integer.class);
+        assertEquals(before + 1, after.intValue());
+    }
+
     private static String asJsonString(final Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -0,0 +1,71 @@
+package com.cst438.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.cst438.dto.GradeExportDTO;
+import com.cst438.service.GradeExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class GradeExportControllerUnitTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    public void exportSectionAsCsv() throws Exception {
+        MockHttpServletResponse response = export("/sections/8/grades/export");
+
+        assertEquals(200, response.getStatus());
+        assertEquals("text/csv", response.getContentType());
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(GradeExporter.CSV_HEADER, lines[0]);
+        // thomas edison against both assignments of section 8, only the first one is graded
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith("2024,Spring,8,cst363,1,2,3,thomas edison,tedison@csumb.edu,1,db homework 1,2024-02-01,95"),
+                lines[1]);
+        assertTrue(lines[2].contains(",2,db homework 2,2024-02-15,"), lines[2]);
+    }
+
+    @Test
+    public void exportTermAsNdjson() throws Exception {
+        MockHttpServletResponse response = export("/grades/export?year=2024&semester=Spring&format=ndjson");
+
+        assertEquals(200, response.getStatus());
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        GradeExportDTO row = new ObjectMapper().readValue(lines[0], GradeExportDTO.class);
+        assertEquals(8, row.sectionNo());
+        assertEquals("db homework 1", row.assignmentTitle());
+        assertEquals(Integer.valueOf(95), row.score());
+    }
+
+    @Test
+    public void exportRejectsUnknownFormat() throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders.get("/sections/8/grades/export?format=xml"))
+                .andReturn()
+                .getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertEquals("format must be csv or ndjson", response.getErrorMessage());
+    }
+
+    // the body is written after the controller returns, on an async dispatch
+    private MockHttpServletResponse export(String url) throws Exception {
+        MvcResult started = mvc.perform(MockMvcRequestBuilders.get(url)).andReturn();
+        return mvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+}
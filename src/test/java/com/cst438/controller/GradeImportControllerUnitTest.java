@@ -0,0 +1,159 @@
+package com.cst438.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.cst438.domain.Grade;
+import com.cst438.domain.GradeRepository;
+import com.cst438.dto.GradeImportResultDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class GradeImportControllerUnitTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    GradeRepository gradeRepository;
+
+    @Test
+    public void importUpdatesAndCreatesGrades() throws Exception {
+        // enrollment 2 has 95 for db homework 1 and no grade yet for db homework 2
+        MockHttpServletResponse response = upload(
+                "email,assignment,score\n" +
+                "tedison@csumb.edu,db homework 1,90\n" +
+                "TEdison@csumb.edu,\"db homework 2\",80\n");
+
+        assertEquals(200, response.getStatus());
+        GradeImportResultDTO result = new ObjectMapper().readValue(response.getContentAsString(), GradeImportResultDTO.class);
+        assertEquals(2, result.written());
+        assertEquals(0, result.errorCount());
+        assertEquals(Integer.valueOf(90), gradeRepository.findByEnrollmentIdAndAssignmentId(2, 1).getScore());
+        assertEquals(Integer.valueOf(80), gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2).getScore());
+
+        // put the scores back, an empty score clears the new grade before it is removed
+        upload("email,assignment,score\n" +
+                "tedison@csumb.edu,db homework 1,95\n" +
+                "tedison@csumb.edu,db homework 2,\n");
+        Grade created = gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2);
+        assertNull(created.getScore());
+        gradeRepository.delete(created);
+    }
+
+    @Test
+    public void importReportsEveryBadRowAndWritesNothing() throws Exception {
+        MockHttpServletResponse response = upload(
+                "score,email,assignment\n" +
+                "90,tedison@csumb.edu,db homework 1\n" +
+                "90,nobody@csumb.edu,db homework 1\n" +
+                "101,tedison@csumb.edu,db homework 2\n" +
+                "A,tedison@csumb.edu,no such assignment\n");
+
+        assertEquals(400, response.getStatus());
+        GradeImportResultDTO result = new ObjectMapper().readValue(response.getContentAsString(), GradeImportResultDTO.class);
+        assertEquals(4, result.rows());
+        assertEquals(0, result.written());
+        assertEquals(3, result.errorCount());
+        assertEquals(3, result.errors().get(0).line());
+        assertEquals("Student not enrolled in section nobody@csumb.edu", result.errors().get(0).message());
+        assertEquals("Score must be between 0 and 100 101", result.errors().get(1).message());
+        assertEquals("Assignment not found no such assignment", result.errors().get(2).message());
+
+        // the valid first row was not applied
+        assertEquals(Integer.valueOf(95), gradeRepository.findByEnrollmentIdAndAssignmentId(2, 1).getScore());
+    }
+
+    @Test
+    public void concurrentImportsCreateTheMissingGradeOnce() throws Exception {
+        // both imports find no grade for db homework 2, only the first one may insert it
+        String csv = "email,assignment,score\n" +
+                "tedison@csumb.edu,db homework 2,70\n";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<MockHttpServletResponse>> imports = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            imports.add(executor.submit(() -> upload(csv)));
+        }
+        for (Future<MockHttpServletResponse> f : imports) {
+            assertEquals(200, f.get(60, TimeUnit.SECONDS).getStatus());
+        }
+        executor.shutdown();
+
+        Grade created = gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2);
+        assertEquals(Integer.valueOf(70), created.getScore());
+        upload("email,assignment,score\n" +
+                "tedison@csumb.edu,db homework 2,\n");
+        gradeRepository.delete(gradeRepository.findByEnrollmentIdAndAssignmentId(2, 2));
+    }
+
+    // a spreadsheet may save 95 as 95.0 and keep line breaks inside a quoted cell
+    @Test
+    public void importReadsQuotedLineBreaksAndWholeDecimals() throws Exception {
+        MockHttpServletResponse response = upload(
+                "email,assignment,score,comment\r\n" +
+                "tedison@csumb.edu,db homework 1,95.0,\"late,\r\nsee \"\"email\"\"\"\r\n");
+
+        assertEquals(200, response.getStatus());
+        GradeImportResultDTO result = new ObjectMapper().readValue(response.getContentAsString(), GradeImportResultDTO.class);
+        assertEquals(1, result.rows());
+        assertEquals(1, result.written());
+        assertEquals(Integer.valueOf(95), gradeRepository.findByEnrollmentIdAndAssignmentId(2, 1).getScore());
+    }
+
+    @Test
+    public void importReportsRowsByTheLineTheyStartOn() throws Exception {
+        MockHttpServletResponse response = upload(
+                "email,assignment,score,comment\n" +
+                "tedison@csumb.edu,db homework 1,95,\"two\nlines\"\n" +
+                "nobody@csumb.edu,db homework 1,90,\n" +
+                "tedison@csumb.edu,db homework 2,80.5,\n");
+
+        assertEquals(400, response.getStatus());
+        GradeImportResultDTO result = new ObjectMapper().readValue(response.getContentAsString(), GradeImportResultDTO.class);
+        assertEquals(3, result.rows());
+        assertEquals(2, result.errorCount());
+        assertEquals(4, result.errors().get(0).line());
+        assertEquals("Student not enrolled in section nobody@csumb.edu", result.errors().get(0).message());
+        assertEquals(5, result.errors().get(1).line());
+        assertEquals("Score is not a whole number 80.5", result.errors().get(1).message());
+    }
+
+    @Test
+    public void importRejectsUnclosedQuote() throws Exception {
+        MockHttpServletResponse response = upload(
+                "email,assignment,score\n" +
+                "tedison@csumb.edu,\"db homework 1,95\n");
+
+        assertEquals(400, response.getStatus());
+        assertEquals("Quoted field starting on line 2 is not closed", response.getErrorMessage());
+    }
+
+    private MockHttpServletResponse upload(String csv) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "grades.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+        return mvc.perform(
+                        MockMvcRequestBuilders
+                                .multipart("/sections/8/grades/import")
+                                .file(file))
+                .andReturn()
+                .getResponse();
+    }
+}
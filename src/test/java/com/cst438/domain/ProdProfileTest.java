@@ -0,0 +1,159 @@
+package com.cst438.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserDTO;
+import com.cst438.service.RegistrarMessageCodec;
+import com.cst438.service.RegistrarServiceProxy;
+import com.cst438.service.SeedDataLoader;
+import com.rabbitmq.client.Channel;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Starts with the prod profile on an in memory database that has the same
+ * compatibility flags as the prod file database, seeded with the data.sql sample rows,
+ * and runs the H2 specific SQL of grade uploads and the registrar sync against it.
+ */
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prodprofile;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;QUERY_CACHE_SIZE=64",
+        "gradebook.seed-data=classpath:data.sql"})
+public class ProdProfileTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    GradeRepository gradeRepository;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    RegistrarServiceProxy registrarServiceProxy;
+
+    @Autowired
+    SeedDataLoader seedDataLoader;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("delete from enrollment where enrollment_id=90001");
+        jdbcTemplate.update("delete from section where section_no=9001");
+        jdbcTemplate.update("delete from user_table where id=9001");
+        jdbcTemplate.update("delete from course where course_id='cst999'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    // a restart against the same database does not load the seed again
+    @Test
+    public void seedIsLoadedOnlyIntoAnEmptyDatabase() {
+        Integer terms = jdbcTemplate.queryForObject("select count(*) from term", Integer.class);
+        Integer grades = jdbcTemplate.queryForObject("select count(*) from grade", Integer.class);
+
+        seedDataLoader.afterPropertiesSet();
+
+        assertEquals(terms, jdbcTemplate.queryForObject("select count(*) from term", Integer.class));
+        assertEquals(grades, jdbcTemplate.queryForObject("select count(*) from grade", Integer.class));
+    }
+
+    @Test
+    public void gradeUploadUpdatesSummary() throws Exception {
+        Grade grade = gradeRepository.findByEnrollmentIdAndAssignmentId(4, 3);
+        assertNull(grade.getScore());
+        int gradedCount = summary(4, "graded_count");
+        int scoreSum = summary(4, "score_sum");
+
+        putScore(grade.getGradeId(), "85");
+        assertEquals(85, gradeRepository.findByEnrollmentIdAndAssignmentId(4, 3).getScore());
+        assertEquals(gradedCount + 1, summary(4, "graded_count"));
+        assertEquals(scoreSum + 85, summary(4, "score_sum"));
+
+        putScore(grade.getGradeId(), "null");
+        assertEquals(gradedCount, summary(4, "graded_count"));
+        assertEquals(scoreSum, summary(4, "score_sum"));
+    }
+
+    @Test
+    public void registrarBatchIsMerged() throws Exception {
+        Channel channel = mock(Channel.class);
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addUser", new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT")),
+                message(3, "addSection", section("100")),
+                message(4, "addEnrollment", new EnrollmentDTO(90001, null, 9001, null, null, "cst999", null,
+                        1, 9001, null, null, null, 3, 2024, "Fall"))), channel);
+        verify(channel).basicAck(4L, true);
+
+        // the same keys again update the rows the first batch merged
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(5, "updateCourse", new CourseDTO("cst999", "Changed Course", 4)),
+                message(6, "updateSection", section("200"))), channel);
+        verify(channel).basicAck(6L, true);
+
+        Enrollment e = enrollmentRepository.findById(90001).get();
+        assertEquals("test student", e.getStudent().getName());
+        assertEquals("Changed Course", e.getSection().getCourse().getTitle());
+        assertEquals("200", e.getSection().getRoom());
+        assertEquals(2024, e.getSection().getTerm().getYear());
+    }
+
+    private void putScore(int gradeId, String score) throws Exception {
+        MockHttpServletResponse response = mvc.perform(
+                        MockMvcRequestBuilders
+                                .put("/grades")
+                                .accept(MediaType.APPLICATION_JSON)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[{\"gradeId\": " + gradeId + ", \"score\": " + score + "}]"))
+                .andReturn()
+                .getResponse();
+        assertEquals(200, response.getStatus());
+    }
+
+    private int summary(int enrollmentId, String column) {
+        List<Integer> values = jdbcTemplate.queryForList(
+                "select " + column + " from grade_summary where enrollment_id=?", Integer.class, enrollmentId);
+        return values.isEmpty() ? 0 : values.get(0);
+    }
+
+    private static SectionDTO section(String room) {
+        return new SectionDTO(9001, 2024, "Fall", "cst999", "Test Course", 1,
+                "052", room, "M W 10:00-11:50", "david wisneski", "dwisneski@csumb.edu");
+    }
+
+    private static Message message(long deliveryTag, String action, Object dto) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(RegistrarMessageCodec.message(action, dto).getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
@@ -0,0 +1,130 @@
+package com.cst438.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/*
+ * Checks with H2 EXPLAIN that the SQL behind each repository query is
+ * answered from an index.  A plan that falls back to a table scan fails the build.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+public class SchemaIndexTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    // SQL equivalents of the repository @Query methods with literal parameters
+    static final String[] QUERIES = {
+            // AssignmentRepository.findBySectionNoOrderByDueDate
+            "select * from assignment a where a.section_no = 8 order by a.due_date",
+            // AssignmentRepository.findBySectionNoAfter
+            "select * from assignment a where a.section_no = 8 " +
+                    "and (coalesce(a.due_date, date '9999-12-31') > date '2024-02-01' " +
+                    "or (coalesce(a.due_date, date '9999-12-31') = date '2024-02-01' and a.assignment_id > 1)) " +
+                    "order by a.due_date nulls last, a.assignment_id",
+            // AssignmentRepository.findByStudentIdAndYearAndSemesterAfter
+            "select a.assignment_id, g.score from assignment a " +
+                    "join section s on s.section_no = a.section_no " +
+                    "join course c on c.course_id = s.course_id " +
+                    "join term t on t.term_id = s.term_id " +
+                    "join enrollment e on e.section_no = s.section_no " +
+                    "left join grade g on g.assignment_id = a.assignment_id and g.enrollment_id = e.enrollment_id " +
+                    "where t.tyear = 2024 and t.semester = 'Fall' and e.user_id = 3 order by a.due_date",
+            // AssignmentRepository.findScoreCountsBySectionNo
+            "select a.assignment_id, g.score, count(g.grade_id) from assignment a " +
+                    "left join grade g on g.assignment_id = a.assignment_id where a.section_no = 8 " +
+                    "group by a.assignment_id, g.score",
+            // EnrollmentRepository.findEnrollmentsBySectionNoOrderByStudentName and findEnrollmentDTOsBySectionNoAfter
+            "select * from enrollment e " +
+                    "join user_table u on u.id = e.user_id " +
+                    "join section s on s.section_no = e.section_no " +
+                    "join course c on c.course_id = s.course_id " +
+                    "join term t on t.term_id = s.term_id " +
+                    "where e.section_no = 8 order by u.name",
+            // EnrollmentRepository.findEnrollmentsByStudentIdOrderByTermId
+            "select * from enrollment e join section s on s.section_no = e.section_no " +
+                    "where e.user_id = 3 order by s.term_id",
+            // EnrollmentRepository.findByYearAndSemesterOrderByCourseId
+            "select * from enrollment e join section s on s.section_no = e.section_no " +
+                    "join term t on t.term_id = s.term_id " +
+                    "where e.user_id = 3 and t.tyear = 2024 and t.semester = 'Fall' order by s.course_id",
+            // EnrollmentRepository.findByStudentIdAndSectionNo, findEnrollmentBySectionNoAndStudentId
+            "select * from enrollment e where e.user_id = 3 and e.section_no = 8",
+            // EnrollmentRepository.findEnrollmentIdsIn
+            "select e.enrollment_id from enrollment e where e.enrollment_id in (1, 2, 3)",
+            // GradeRepository.findByEnrollmentIdAndAssignmentId
+            "select * from grade g where g.assignment_id = 4 and g.enrollment_id = 4",
+            // GradeRepository.findByAssignmentIdAfter
+            "select * from grade g join enrollment e on e.enrollment_id = g.enrollment_id " +
+                    "join user_table u on u.id = e.user_id where g.assignment_id = 4 order by u.name",
+            // GradeBatchWriter.updateScores
+            "select g.grade_id, g.enrollment_id, g.assignment_id, g.score from grade g where g.grade_id in (1, 2, 3) order by g.grade_id",
+            // GradeRepository.streamExportBySectionNo
+            "select e.enrollment_id, a.assignment_id, g.score from enrollment e " +
+                    "join section s on s.section_no = e.section_no " +
+                    "join user_table u on u.id = e.user_id " +
+                    "join assignment a on a.section_no = s.section_no " +
+                    "left join grade g on g.assignment_id = a.assignment_id and g.enrollment_id = e.enrollment_id " +
+                    "where s.section_no = 8 order by u.name, e.enrollment_id, a.due_date",
+            // GradeSummaryRepository.findSummaryByEnrollmentId
+            "select * from enrollment e left join grade_summary s on s.enrollment_id = e.enrollment_id " +
+                    "where e.enrollment_id = 4",
+            // GradeRepository.findEnrollmentIdsWithoutGrade
+            "select e.enrollment_id from enrollment e where e.section_no = 11 and not exists " +
+                    "(select 1 from grade g where g.enrollment_id = e.enrollment_id and g.assignment_id = 4)",
+            // SectionRepository.findByLikeCourseIdAndYearAndSemester
+            "select * from section s join term t on t.term_id = s.term_id " +
+                    "where s.course_id like 'cst438%' and t.tyear = 2024 and t.semester = 'Fall' " +
+                    "order by s.course_id, s.sec_id",
+            // SectionRepository.findByInstructorEmailAndYearAndSemester and the DTO pages
+            "select * from section s join course c on c.course_id = s.course_id " +
+                    "join term t on t.term_id = s.term_id " +
+                    "where s.instructor_email = 'dwisneski@csumb.edu' and t.tyear = 2024 and t.semester = 'Fall' " +
+                    "order by s.course_id, s.sec_id",
+            // SectionRepository.findBySectionId
+            "select * from section s where s.sec_id = 1",
+            // SectionRepository.findBySectionNo
+            "select * from section s where s.section_no = 8",
+            // TermRepository.findByYearAndSemester
+            "select * from term t where t.tyear = 2024 and t.semester = 'Fall'",
+            // UserRepository.findByEmail
+            "select * from user_table u where u.email = 'tedison@csumb.edu'",
+            // RegistrarOutbox.relay and stats
+            "select outbox_id, action, payload from outbox where sent_at is null order by outbox_id limit 500",
+            "select count(*), min(created_at) from outbox where sent_at is null"
+    };
+
+    @Test
+    public void repositoryQueriesUseIndexes() {
+        for (String sql : QUERIES) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            assertFalse(plan.contains("tableScan"), "Query is not using an index:\n" + plan);
+        }
+    }
+
+    // the prod profile runs schema.sql on every start against an existing file database
+    @Test
+    public void schemaCanRunAgainOnExistingDatabase() {
+        Integer sections = jdbcTemplate.queryForObject("select count(*) from section", Integer.class);
+        Integer grades = jdbcTemplate.queryForObject("select count(*) from grade", Integer.class);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        assertEquals(sections, jdbcTemplate.queryForObject("select count(*) from section", Integer.class));
+        assertEquals(grades, jdbcTemplate.queryForObject("select count(*) from grade", Integer.class));
+    }
+}
@@ -0,0 +1,72 @@
+package com.cst438.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class RequestStatementMetricsTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void requestStatementsAreRecordedPerEndpoint() throws Exception {
+        long before = count();
+
+        int status = mvc.perform(MockMvcRequestBuilders.get("/sections/8/enrollments"))
+                .andReturn().getResponse().getStatus();
+
+        assertEquals(200, status);
+        DistributionSummary summary = summary();
+        assertNotNull(summary);
+        assertEquals(before + 1, summary.count());
+        assertTrue(summary.max() >= 1, "at least one statement for the enrollment query");
+    }
+
+    // one select whatever the page size, the assignments, sections and scores are joined
+    @Test
+    public void studentAssignmentStatementsDoNotGrowWithPageSize() throws Exception {
+        int one = statements("/assignments?studentId=3&year=2024&semester=Spring&limit=1");
+        int all = statements("/assignments?studentId=3&year=2024&semester=Spring&limit=100");
+        assertEquals(one, all);
+        assertTrue(all <= 3, "statements " + all);
+    }
+
+    @Test
+    public void statementsAreNotCountedOutsideRequests() {
+        assertEquals(-1, StatementCounter.current());
+    }
+
+    private int statements(String url) throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(url)).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        return (Integer) result.getRequest().getAttribute(RequestStatementsInterceptor.STATEMENTS_ATTRIBUTE);
+    }
+
+    private DistributionSummary summary() {
+        return meterRegistry.find(RequestStatementsInterceptor.METRIC)
+                .tag("uri", "/sections/{sectionNo}/enrollments")
+                .summary();
+    }
+
+    private long count() {
+        DistributionSummary summary = summary();
+        return summary == null ? 0 : summary.count();
+    }
+}
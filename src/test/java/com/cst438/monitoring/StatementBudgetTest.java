@@ -0,0 +1,133 @@
+package com.cst438.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class StatementBudgetTest {
+
+    static class Handler {
+        @StatementBudget(2)
+        public void budgeted() {
+        }
+
+        public void unbudgeted() {
+        }
+    }
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/sections/8/enrollments");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    public void stopCounting() {
+        StatementCounter.stop();
+    }
+
+    @Test
+    public void overBudgetFailsWhenStrict() throws Exception {
+        RequestStatementsInterceptor interceptor = new RequestStatementsInterceptor(meterRegistry, true, 1);
+        HandlerMethod handler = handler("budgeted");
+        interceptor.preHandle(request, response, handler);
+        prepare(3, "select * from enrollment where section_no=?");
+
+        StatementBudgetExceededException e = assertThrows(StatementBudgetExceededException.class,
+                () -> interceptor.postHandle(request, response, handler, null));
+        assertTrue(e.getMessage().contains("prepared 3 JDBC statements, budget is 2"), e.getMessage());
+        assertTrue(e.getMessage().contains("3 x select * from enrollment where section_no=?"), e.getMessage());
+    }
+
+    // a handler that returns a body is checked before the body is written
+    @Test
+    public void overBudgetFailsBeforeTheBodyIsWritten() throws Exception {
+        RequestStatementsInterceptor interceptor = new RequestStatementsInterceptor(meterRegistry, true, 1);
+        StatementBudgetAdvice advice = new StatementBudgetAdvice();
+        advice.requestStatementsInterceptor = interceptor;
+        HandlerMethod handler = handler("budgeted");
+        MethodParameter returnType = handler.getReturnType();
+        interceptor.preHandle(request, response, handler);
+        prepare(3, "select 1");
+
+        assertTrue(advice.supports(returnType, MappingJackson2HttpMessageConverter.class));
+        assertThrows(StatementBudgetExceededException.class,
+                () -> advice.beforeBodyWrite(List.of(), returnType, MediaType.APPLICATION_JSON, MappingJackson2HttpMessageConverter.class,
+                        new ServletServerHttpRequest(request), new ServletServerHttpResponse(response)));
+        assertFalse(response.isCommitted());
+        assertFalse(advice.supports(handler("unbudgeted").getReturnType(), MappingJackson2HttpMessageConverter.class));
+    }
+
+    // once the body is written the request can no longer fail, the advice has checked it
+    @Test
+    public void committedResponseIsNotCheckedAgain() throws Exception {
+        RequestStatementsInterceptor interceptor = new RequestStatementsInterceptor(meterRegistry, true, 1);
+        HandlerMethod handler = handler("budgeted");
+        interceptor.preHandle(request, response, handler);
+        prepare(3, "select 1");
+        response.setCommitted(true);
+
+        interceptor.postHandle(request, response, handler, null);
+    }
+
+    @Test
+    public void overBudgetIsCountedWhenNotStrict() throws Exception {
+        RequestStatementsInterceptor interceptor = new RequestStatementsInterceptor(meterRegistry, false, 100);
+        HandlerMethod handler = handler("budgeted");
+        interceptor.preHandle(request, response, handler);
+        prepare(3, "select 1");
+        interceptor.postHandle(request, response, handler, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(3, request.getAttribute(RequestStatementsInterceptor.STATEMENTS_ATTRIBUTE));
+        assertEquals(1.0, meterRegistry.get(RequestStatementsInterceptor.OVER_BUDGET_METRIC)
+                .tag("uri", "/sections/{sectionNo}/enrollments").counter().count());
+    }
+
+    @Test
+    public void withinBudgetOrUnbudgetedPasses() throws Exception {
+        RequestStatementsInterceptor interceptor = new RequestStatementsInterceptor(meterRegistry, true, 1);
+        for (String name : new String[] {"budgeted", "unbudgeted"}) {
+            HandlerMethod handler = handler(name);
+            interceptor.preHandle(request, response, handler);
+            prepare(name.equals("budgeted") ? 2 : 50, "select 1");
+            interceptor.postHandle(request, response, handler, null);
+            interceptor.afterCompletion(request, response, handler, null);
+        }
+        assertEquals(0, meterRegistry.find(RequestStatementsInterceptor.OVER_BUDGET_METRIC).counters().size());
+    }
+
+    @Test
+    public void queryShapesIgnoreInListLength() {
+        assertEquals("select g from grade g where g.grade_id in (?...)",
+                StatementCounter.shape("select g\n  from grade g where g.grade_id in (?, ?,?)"));
+        assertEquals("<statement>", StatementCounter.shape(null));
+    }
+
+    private HandlerMethod handler(String name) throws Exception {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/sections/{sectionNo}/enrollments");
+        return new HandlerMethod(new Handler(), Handler.class.getMethod(name));
+    }
+
+    private static void prepare(int n, String sql) {
+        for (int i = 0; i < n; i++) {
+            StatementCounter.increment(sql);
+        }
+    }
+}
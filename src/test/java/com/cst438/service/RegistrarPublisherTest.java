@@ -0,0 +1,83 @@
+package com.cst438.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/*
+ * Runs the publisher against a fake broker that confirms or rejects each publish.
+ */
+public class RegistrarPublisherTest {
+
+    @Test
+    public void returnsTheUnconfirmedMessagesInOrder() throws Exception {
+        // the broker rejects the first two publishes
+        FakeBroker broker = new FakeBroker(2);
+
+        List<OutboundMessage> failed = publisher(broker).publish(batch(5));
+
+        assertEquals(List.of("m0", "m1"), failed.stream().map(OutboundMessage::id).toList());
+        assertEquals(3, broker.confirmed.size());
+    }
+
+    @Test
+    public void unreachableBrokerFailsTheRestOfTheBatch() throws Exception {
+        FakeBroker broker = new FakeBroker(0);
+        broker.reachable = 2;
+
+        List<OutboundMessage> failed = publisher(broker).publish(batch(5));
+
+        assertEquals(List.of("m2", "m3", "m4"), failed.stream().map(OutboundMessage::id).toList());
+        assertEquals(2, broker.confirmed.size());
+    }
+
+    private static List<OutboundMessage> batch(int size) {
+        List<OutboundMessage> batch = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            batch.add(new OutboundMessage("m" + i, "updateEnrollment " + i));
+        }
+        return batch;
+    }
+
+    private static RegistrarPublisher publisher(RabbitTemplate broker) {
+        RegistrarPublisher publisher = new RegistrarPublisher();
+        publisher.rabbitTemplate = broker;
+        publisher.confirmTimeout = Duration.ofMillis(500);
+        return publisher;
+    }
+
+    static class FakeBroker extends RabbitTemplate {
+        final List<Object> confirmed = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger rejects;
+        // publishes accepted before the connection is lost
+        int reachable = Integer.MAX_VALUE;
+
+        FakeBroker(int rejects) {
+            this.rejects = new AtomicInteger(rejects);
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object message,
+                                   MessagePostProcessor messagePostProcessor, CorrelationData correlationData) {
+            if (reachable-- <= 0) {
+                throw new AmqpConnectException(new ConnectException("Connection refused"));
+            }
+            boolean ack = rejects.getAndDecrement() <= 0;
+            if (ack) {
+                confirmed.add(message);
+            }
+            correlationData.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "rejected"));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.cst438.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.cst438.domain.CourseRepository;
+import com.cst438.domain.Enrollment;
+import com.cst438.domain.EnrollmentRepository;
+import com.cst438.domain.Section;
+import com.cst438.domain.SectionRepository;
+import com.cst438.dto.CourseDTO;
+import com.cst438.dto.EnrollmentDTO;
+import com.cst438.dto.SectionDTO;
+import com.cst438.dto.UserDTO;
+import com.rabbitmq.client.Channel;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Delivers registrar batches straight to the listener method, with a mock
+ * Channel standing in for the broker to record acks and nacks.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+public class RegistrarServiceProxyTest {
+
+    @Autowired
+    RegistrarServiceProxy registrarServiceProxy;
+
+    @Autowired
+    EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    CourseRepository courseRepository;
+
+    @Autowired
+    SectionRepository sectionRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("delete from grade_summary where enrollment_id in (90001, 90002)");
+        jdbcTemplate.update("delete from grade where enrollment_id in (90001, 90002)");
+        jdbcTemplate.update("delete from assignment where section_no=9001");
+        jdbcTemplate.update("delete from enrollment where enrollment_id in (90001, 90002)");
+        jdbcTemplate.update("delete from section where section_no=9001");
+        jdbcTemplate.update("delete from user_table where id=9001");
+        jdbcTemplate.update("delete from course where course_id='cst999'");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void appliesBatchAndAcksAfterCommit() throws Exception {
+        Channel channel = mock(Channel.class);
+
+        List<Message> messages = List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addUser", new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT")),
+                message(3, "addSection", section("100")),
+                message(4, "addEnrollment", enrollment(90001, 9001, 9001)));
+
+        registrarServiceProxy.receiveFromRegistrar(messages, channel);
+
+        verify(channel).basicAck(4L, true);
+        Enrollment e = enrollmentRepository.findById(90001).orElse(null);
+        assertNotNull(e);
+        assertEquals("test student", e.getStudent().getName());
+        assertEquals("cst999", e.getSection().getCourse().getCourseId());
+        assertEquals(2024, e.getSection().getTerm().getYear());
+    }
+
+    @Test
+    public void rejectsOnlyTheBadMessage() throws Exception {
+        Channel channel = mock(Channel.class);
+
+        // the enrollment refers to a section that does not exist
+        List<Message> messages = List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addEnrollment", enrollment(90002, 3, 99999)));
+
+        registrarServiceProxy.receiveFromRegistrar(messages, channel);
+
+        verify(channel).basicAck(1L, false);
+        verify(channel).basicNack(2L, false, false);
+        assertTrue(courseRepository.existsById("cst999"));
+        assertNull(enrollmentRepository.findById(90002).orElse(null));
+    }
+
+    @Test
+    public void skipsRedeliveredMessages() throws Exception {
+        Channel channel = mock(Channel.class);
+        Message add = message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3));
+        add.getMessageProperties().setMessageId("test-message-1");
+        registrarServiceProxy.receiveFromRegistrar(List.of(add), channel);
+
+        // the gradebook copy changes, then the broker redelivers the same message
+        jdbcTemplate.update("update course set title='Changed' where course_id='cst999'");
+        Message redelivered = message(2, "addCourse", new CourseDTO("cst999", "Test Course", 3));
+        redelivered.getMessageProperties().setMessageId("test-message-1");
+        registrarServiceProxy.receiveFromRegistrar(List.of(redelivered), channel);
+
+        verify(channel).basicAck(2L, true);
+        assertEquals("Changed", courseRepository.findById("cst999").get().getTitle());
+    }
+
+    @Test
+    public void updateEvictsCachedSection() throws Exception {
+        Channel channel = mock(Channel.class);
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addSection", section("100"))), channel);
+
+        // load the section into the second level cache, then move it to another room
+        assertEquals("100", sectionRepository.findById(9001).get().getRoom());
+        assertTrue(entityManagerFactory.getCache().contains(Section.class, 9001));
+        registrarServiceProxy.receiveFromRegistrar(List.of(message(3, "updateSection", section("200"))), channel);
+
+        assertEquals("200", sectionRepository.findById(9001).get().getRoom());
+    }
+
+    @Test
+    public void deleteSectionRemovesItsEnrollmentsAndGrades() throws Exception {
+        Channel channel = mock(Channel.class);
+        addGradedSection(channel);
+
+        registrarServiceProxy.receiveFromRegistrar(List.of(message(5, "deleteSection", section("100"))), channel);
+
+        verify(channel).basicAck(5L, true);
+        assertFalse(sectionRepository.existsById(9001));
+        assertFalse(enrollmentRepository.existsById(90001));
+        assertEquals(0, count("select count(*) from grade where enrollment_id=90001"));
+        assertTrue(courseRepository.existsById("cst999"));
+    }
+
+    @Test
+    public void deleteCourseRemovesItsSections() throws Exception {
+        Channel channel = mock(Channel.class);
+        addGradedSection(channel);
+
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(5, "deleteCourse", new CourseDTO("cst999", "Test Course", 3))), channel);
+
+        verify(channel).basicAck(5L, true);
+        assertFalse(courseRepository.existsById("cst999"));
+        assertFalse(sectionRepository.existsById(9001));
+        assertFalse(enrollmentRepository.existsById(90001));
+        assertEquals(0, count("select count(*) from assignment where section_no=9001"));
+        assertEquals(0, count("select count(*) from grade_summary where enrollment_id=90001"));
+    }
+
+    @Test
+    public void sectionForUnknownTermIsRejected() throws Exception {
+        Channel channel = mock(Channel.class);
+        SectionDTO unknownTerm = new SectionDTO(9001, 2029, "Fall", "cst999", "Test Course", 1,
+                "052", "100", "M W 10:00-11:50", "david wisneski", "dwisneski@csumb.edu");
+
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addSection", unknownTerm)), channel);
+
+        verify(channel).basicAck(1L, false);
+        verify(channel).basicNack(2L, false, false);
+        assertFalse(sectionRepository.existsById(9001));
+    }
+
+    @Test
+    public void coalescesRepeatedChangesToOneRow() {
+        List<RegistrarMessage> batch = List.of(
+                RegistrarMessage.parse(RegistrarMessageCodec.message("addCourse", new CourseDTO("cst999", "First", 3))),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("addUser", new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT"))),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("updateCourse", new CourseDTO("cst999", "Latest", 3))));
+
+        List<RegistrarMessage> coalesced = RegistrarSyncService.coalesce(batch);
+
+        // the latest course change keeps the position of the first one
+        assertEquals(2, coalesced.size());
+        assertEquals("updateCourse", coalesced.get(0).action());
+        assertEquals("Latest", coalesced.get(0).decode(CourseDTO.class).title());
+        assertEquals("addUser", coalesced.get(1).action());
+    }
+
+    // section 9001 of cst999 with student 9001 enrolled and one graded assignment
+    private void addGradedSection(Channel channel) throws Exception {
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(1, "addCourse", new CourseDTO("cst999", "Test Course", 3)),
+                message(2, "addUser", new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT")),
+                message(3, "addSection", section("100")),
+                message(4, "addEnrollment", enrollment(90001, 9001, 9001))), channel);
+        jdbcTemplate.update("insert into assignment (assignment_id, section_no, title, due_date) values (90001, 9001, 'test', '2024-09-01')");
+        jdbcTemplate.update("insert into grade (grade_id, enrollment_id, assignment_id, score) values (90001, 90001, 90001, 80)");
+        jdbcTemplate.update("insert into grade_summary (enrollment_id, graded_count, score_sum) values (90001, 1, 80)");
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    @Test
+    public void deleteThenAddInOneBatchRemovesOldEnrollments() throws Exception {
+        Channel channel = mock(Channel.class);
+        addGradedSection(channel);
+
+        registrarServiceProxy.receiveFromRegistrar(List.of(
+                message(5, "deleteUser", new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT")),
+                message(6, "addUser", new UserDTO(9001, "new student", "tstudent@csumb.edu", "STUDENT"))), channel);
+
+        verify(channel).basicAck(6L, true);
+        assertEquals(1, count("select count(*) from user_table where id=9001 and name='new student'"));
+        assertFalse(enrollmentRepository.existsById(90001));
+        assertEquals(0, count("select count(*) from grade where enrollment_id=90001"));
+    }
+
+    @Test
+    public void deleteIsNotCoalescedWithLaterChanges() {
+        UserDTO user = new UserDTO(9001, "test student", "tstudent@csumb.edu", "STUDENT");
+        List<RegistrarMessage> batch = List.of(
+                RegistrarMessage.parse(RegistrarMessageCodec.message("addUser", user)),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("deleteSection", section("100"))),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("deleteUser", user)),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("addUser", user)),
+                RegistrarMessage.parse(RegistrarMessageCodec.message("updateUser", user)));
+
+        List<RegistrarMessage> coalesced = RegistrarSyncService.coalesce(batch);
+
+        assertEquals(List.of("addUser", "deleteSection", "deleteUser", "updateUser"),
+                coalesced.stream().map(RegistrarMessage::action).toList());
+    }
+
+    private static SectionDTO section(String room) {
+        return new SectionDTO(9001, 2024, "Fall", "cst999", "Test Course", 1,
+                "052", room, "M W 10:00-11:50", "david wisneski", "dwisneski@csumb.edu");
+    }
+
+    private static EnrollmentDTO enrollment(int enrollmentId, int studentId, int sectionNo) {
+        return new EnrollmentDTO(enrollmentId, null, studentId, null, null, "cst999", null,
+                1, sectionNo, null, null, null, 3, 2024, "Fall");
+    }
+
+    private static Message message(long deliveryTag, String action, Object dto) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        return new Message(RegistrarMessageCodec.message(action, dto).getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
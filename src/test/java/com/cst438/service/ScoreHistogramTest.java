@@ -0,0 +1,38 @@
+package com.cst438.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ScoreHistogramTest {
+
+    @Test
+    public void summarizesCountedScores() {
+        ScoreHistogram histogram = new ScoreHistogram();
+        histogram.add(70, 1);
+        histogram.add(85, 2);
+        histogram.add(100, 1);
+
+        assertEquals(4, histogram.count());
+        assertEquals(Integer.valueOf(70), histogram.min());
+        assertEquals(Integer.valueOf(100), histogram.max());
+        assertEquals(Double.valueOf(85.0), histogram.mean());
+        assertEquals(Integer.valueOf(85), histogram.percentile(0.5));
+        assertEquals(Integer.valueOf(100), histogram.percentile(1.0));
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 0L, 0L, 1L, 2L, 1L), histogram.buckets(10));
+    }
+
+    @Test
+    public void emptyHistogramHasNoFigures() {
+        ScoreHistogram histogram = new ScoreHistogram();
+
+        assertEquals(0, histogram.count());
+        assertNull(histogram.min());
+        assertNull(histogram.max());
+        assertNull(histogram.mean());
+        assertNull(histogram.percentile(0.5));
+    }
+}